@@ -0,0 +1,58 @@
+package oop.ex6.benchmarks;
+
+import oop.ex6.compiler.Type;
+import oop.ex6.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures how fast the Validator classifies literals, names and lines
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassifierBenchmark {
+    private static final Type[] TYPES = {Type.INT, Type.DOUBLE, Type.BOOLEAN, Type.CHAR, Type.STRING};
+    private static final String[] LITERALS = {"42", "-17", "+3.25", ".5", "true", "false", "'c'", "\"text\"",
+            "12a", "name", "\"unclosed", "--1"};
+    private static final String[] NAMES = {"count", "_private", "a1b2", "_", "1abc", "while", "method_name"};
+    private static final String[] LINES = {"int a = 5;", "if (a && b) {", "}", "foo(a, b); bar();",
+            "double d = 3.5", "// comment"};
+
+    @Benchmark
+    @OperationsPerInvocation(60)
+    public void literals(Blackhole blackhole) {
+        for (Type type : TYPES) {
+            for (String literal : LITERALS) {
+                blackhole.consume(Validator.checkType(type, literal));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(14)
+    public void names(Blackhole blackhole) {
+        for (String name : NAMES) {
+            blackhole.consume(Validator.checkVarName(name));
+            blackhole.consume(Validator.checkMethodName(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public void lines(Blackhole blackhole) {
+        for (String line : LINES) {
+            blackhole.consume(Validator.checkLegalLine(line));
+        }
+    }
+}
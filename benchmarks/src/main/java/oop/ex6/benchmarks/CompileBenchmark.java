@@ -0,0 +1,67 @@
+package oop.ex6.benchmarks;
+
+import oop.ex6.main.CompilationResult;
+import oop.ex6.main.Sjavac;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the full validation of small, medium and large programs, from their bytes to their result, and of
+ * programs of the same sizes that are rejected with an error in one of their methods
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CompileBenchmark {
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private static final long SEED = 42;
+
+    private byte[] program;
+    private byte[] rejected;
+
+    @Setup
+    public void setUp() {
+        Workload workload;
+        switch (size) {
+            case "small":
+                program = Programs.generate(5, 1, false);
+                workload = Workload.BASELINE.withMethods(5).withGlobals(3).withDepth(1);
+                break;
+            case "medium":
+                program = Programs.generate(200, 3, false);
+                workload = Workload.BASELINE.withDepth(3);
+                break;
+            default:
+                program = Programs.generate(5000, 3, false);
+                workload = Workload.BASELINE.withMethods(5000).withDepth(3);
+        }
+        rejected = new WorkloadGenerator(SEED).generate(workload, Defect.SIGNATURE_MISMATCH).getBytes();
+    }
+
+    @Benchmark
+    public CompilationResult compile() {
+        return Sjavac.compile(Programs.FILE, ByteBuffer.wrap(program));
+    }
+
+    @Benchmark
+    public CompilationResult reject() {
+        return Sjavac.compile(Programs.FILE, ByteBuffer.wrap(rejected));
+    }
+}
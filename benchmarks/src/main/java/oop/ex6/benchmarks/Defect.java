@@ -0,0 +1,34 @@
+package oop.ex6.benchmarks;
+
+import oop.ex6.compiler.ErrorKind;
+
+/**
+ * Enum for the errors a generated program may be given on purpose, each failing in a known check of the
+ * compilation engine with a known kind of error
+ */
+public enum Defect {
+    //A legal program
+    NONE(null),
+    //A call passing a double where the signature expects an int, failing in compileCall
+    SIGNATURE_MISMATCH(ErrorKind.SIGNATURE_DOESNT_MATCH),
+    //A call to a method that wasn't declared, failing in compileCall
+    UNDEFINED_METHOD(ErrorKind.METHOD_DOESNT_EXIST),
+    //An assignment to a final global, failing in compileLet
+    FINAL_ASSIGNMENT(ErrorKind.TRIED_TO_CHANGE_FINAL),
+    //A call passing a local that was declared without a value, failing in checkSignature
+    UNINITIALIZED_ARGUMENT(ErrorKind.UNINITIALIZED_PARAMETER);
+
+    private final ErrorKind kind;
+
+    Defect(ErrorKind kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * getter for the kind of error the compiler reports for this defect
+     * @return the expected kind, or null for a legal program
+     */
+    public ErrorKind getKind() {
+        return kind;
+    }
+}
@@ -0,0 +1,61 @@
+package oop.ex6.benchmarks;
+
+import oop.ex6.main.CompilationResult;
+import oop.ex6.main.Sjavac;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Generates legal SJava programs for the benchmarks to compile
+ */
+public class Programs {
+    public static final Path FILE = Paths.get("benchmark.sjava");
+    private static final String UNICODE_COMMENT = "// é\n";
+
+    /**
+     * Generates a legal program
+     * @param methods number of methods in the program
+     * @param depth how deeply the scopes in every method are nested
+     * @param unicode true to add a non ASCII comment, so the program isn't tokenized by the byte lexer
+     * @return the program's bytes
+     */
+    public static byte[] generate(int methods, int depth, boolean unicode) {
+        StringBuilder program = new StringBuilder();
+        if (unicode) {
+            program.append(UNICODE_COMMENT);
+        }
+        program.append("int count = 0;\n");
+        program.append("final double RATIO = 1.5;\n");
+        program.append("String name = \"sjava\";\n");
+        for (int i = 0; i < methods; i++) {
+            program.append("void method").append(i).append("(int a, final double b, boolean c, char d) {\n");
+            program.append("    int local = a;\n");
+            program.append("    double sum = b, other = 3;\n");
+            program.append("    String text = \"hello world\";\n");
+            program.append("    count = local;\n");
+            for (int level = 0; level < depth; level++) {
+                program.append("    if (c && local || true) {\n");
+                program.append("        boolean flag").append(level).append(" = c;\n");
+                program.append("        sum = -2.5;\n");
+            }
+            program.append("        method").append((i + 1) % methods).append("(local, sum, c, 'x');\n");
+            for (int level = 0; level < depth; level++) {
+                program.append("    }\n");
+            }
+            program.append("    while (c) {\n");
+            program.append("        local = 7;\n");
+            program.append("    }\n");
+            program.append("    return;\n");
+            program.append("}\n");
+        }
+        byte[] bytes = program.toString().getBytes(StandardCharsets.UTF_8);
+        CompilationResult result = Sjavac.compile(FILE, ByteBuffer.wrap(bytes));
+        if (result.getCode() != CompilationResult.NO_ERROR) {
+            throw new IllegalStateException("Generated an illegal program: " + result.getMessage());
+        }
+        return bytes;
+    }
+}
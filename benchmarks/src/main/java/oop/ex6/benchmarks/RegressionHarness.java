@@ -0,0 +1,320 @@
+package oop.ex6.benchmarks;
+
+import oop.ex6.cache.ResultCache;
+import oop.ex6.compiler.CompilationStats;
+import oop.ex6.main.BatchCompiler;
+import oop.ex6.main.CompilationResult;
+import oop.ex6.main.CompilerService;
+import oop.ex6.main.Sjavac;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks that every way of compiling a program reports exactly what the compiler reported before it was
+ * optimized. The programs are the .sjava files of the tests directory, a few EDGE_CASES, and a corpus the
+ * WorkloadGenerator generates from a fixed seed, some of whose programs get a character outside the Basic
+ * Multilingual Plane, and EXPECTED_FILE in the tests directory holds the result line of every one of them as
+ * the original compiler printed it. Every program is compiled from its file, from a stream, by a CompilerService
+ * from its file and from its text, in a batch, in a cached batch twice - the second time from the cache - on a
+ * pool of PARALLELISM threads, and padded with comment lines to be tokenized in parallel chunks on that pool,
+ * whatever the number of cores. Every difference is printed, and the harness exits with 1 if there is any.
+ * The expected results were printed with the platform's charset set to UTF-8, so the harness refuses to run
+ * with any other charset.
+ * Usage: RegressionHarness [--tests=DIR]
+ */
+public class RegressionHarness {
+    public static final String TESTS_OPTION = "--tests=";
+    public static final String UNKNOWN_OPTION_MSG = "Unknown option: ";
+    public static final String CHARSET_MSG =
+            "The expected results are of UTF-8 sources, run with -Dfile.encoding=UTF-8";
+    public static final String EXPECTED_FILE = "expected.txt";
+    public static final String GENERATED_PREFIX = "generated-";
+    public static final String MUTATED_PREFIX = "mutated-";
+    public static final String EDGE_CASE_PREFIX = "edge-";
+    //programs of nothing, of blank lines, of comments, or with characters the regex tokenizer reads as two chars
+    private static final String[] EDGE_CASES = {
+            "",
+            "\n",
+            "\n    \n\t\n\n",
+            "// nothing but a comment",
+            "// a comment\n\n//void foo () {\n//}\n",
+            "int a = 5;",
+            "char c = '\uD83D\uDE00';\n",
+            "char c\uD83D\uDE00;\n",
+            "String s = \"\uD83D\uDE00\";\n",
+            "// \uD83D\uDE00\nint a = 5;\n",
+            "void foo () {\nboolean a = true;\nif (a \uD83D\uDE00 a) {\n}\nreturn;\n}\n",
+            "void foo () {\nboolean a = true;\nif (a || a && a) {\n}\nreturn;\n}\n",
+            "void foo () {\nboolean a = true;\nwhile (a |\uD83D\uDE00 a) {\n}\nreturn;\n}\n",
+            "void foo\uD83D\uDE00 () {\nreturn;\n}\n",
+            "void foo () {\n}\n"
+    };
+    //the character a mutated program gets, and how many of the corpus programs get one
+    private static final String MUTATION = "\uD83D\uDE01";
+    private static final int MUTATED_EVERY = 4;
+    private static final String DEFAULT_TESTS = "src/tests";
+    private static final String CRASH_MSG = "Crashed: ";
+    private static final long CORPUS_SEED = 6;
+    private static final int CORPUS_SIZE = 200;
+    //the choices of every parameter of a corpus program's Workload
+    private static final int[] METHODS = {1, 2, 8, 40, 200};
+    private static final int[] GLOBALS = {0, 5, 20, 80};
+    private static final int[] DEPTHS = {0, 1, 3, 8};
+    private static final int[] STATEMENTS = {1, 6, 12, 40};
+    private static final int[] FAN_OUTS = {0, 1, 2, 6};
+    private static final int[] LINE_LENGTHS = {20, 60, 200};
+    //a padded program has this many bytes of comment lines after it, enough to be tokenized in chunks
+    private static final int PADDING_LENGTH = 5 << 20;
+    private static final String PADDING_LINE = "//" + "-".repeat(78) + "\n";
+    private static final long CACHE_SIZE = 1 << 24;
+    //threads of the batches and of the pool the parallel modes run on, more than one even on a single core
+    private static final int PARALLELISM = 4;
+    private static final int EXIT_DIFFERENT = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private final Path tests;
+    private final Path workDirectory;
+    private final List<Program> programs = new ArrayList<>();
+    private final Map<String, String> expected = new LinkedHashMap<>();
+    private int differences;
+
+    /**
+     * A program to compile, and the file it's read from
+     */
+    private static class Program {
+        private final String name;
+        private final Path file;
+        private final byte[] bytes;
+
+        private Program(String name, Path file, byte[] bytes) {
+            this.name = name;
+            this.file = file;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * A way of compiling a single program
+     */
+    private interface Mode {
+        CompilationResult compile(Program program);
+    }
+
+    /**
+     * Constructor
+     * @param tests directory of the test programs and of EXPECTED_FILE
+     * @param workDirectory directory to write the generated programs and the cache to
+     */
+    public RegressionHarness(Path tests, Path workDirectory) {
+        this.tests = tests;
+        this.workDirectory = workDirectory;
+    }
+
+    /**
+     * Main method
+     * @param args arguments from the command line
+     * @throws IOException if the programs or the expected results can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path tests = Paths.get(DEFAULT_TESTS);
+        for (String arg : args) {
+            if (arg.startsWith(TESTS_OPTION)) {
+                tests = Paths.get(arg.substring(TESTS_OPTION.length()));
+            } else {
+                System.err.println(UNKNOWN_OPTION_MSG + arg);
+                System.exit(EXIT_USAGE);
+            }
+        }
+        if (!Charset.defaultCharset().equals(StandardCharsets.UTF_8)) {
+            System.err.println(CHARSET_MSG);
+            System.exit(EXIT_USAGE);
+        }
+        Path workDirectory = Files.createTempDirectory("sjavac-regression");
+        int differences;
+        try {
+            RegressionHarness harness = new RegressionHarness(tests, workDirectory);
+            harness.load();
+            differences = harness.runAll(System.out);
+        } finally {
+            delete(workDirectory);
+        }
+        System.exit(differences == 0 ? 0 : EXIT_DIFFERENT);
+    }
+
+    /**
+     * Reads the test programs and the expected results, and generates the corpus into the work directory
+     * @throws IOException if a program or the expected results can't be read, or the corpus can't be written
+     */
+    public void load() throws IOException {
+        for (String line : Files.readAllLines(tests.resolve(EXPECTED_FILE), StandardCharsets.UTF_8)) {
+            int separator = line.indexOf(' ');
+            expected.put(line.substring(0, separator), line.substring(separator + 1));
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(tests, "*" + BatchCompiler.SOURCE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparing(Path::toString));
+        for (Path file : files) {
+            programs.add(new Program(file.getFileName().toString(), file, Files.readAllBytes(file)));
+        }
+
+        for (int i = 0; i < EDGE_CASES.length; i++) {
+            add(String.format("%s%02d%s", EDGE_CASE_PREFIX, i, BatchCompiler.SOURCE_SUFFIX),
+                    EDGE_CASES[i].getBytes(StandardCharsets.UTF_8));
+        }
+
+        WorkloadGenerator generator = new WorkloadGenerator(CORPUS_SEED);
+        Random random = new Random(CORPUS_SEED);
+        Defect[] defects = Defect.values();
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            Workload workload = new Workload(pick(random, METHODS), pick(random, GLOBALS), pick(random, DEPTHS),
+                    pick(random, STATEMENTS), pick(random, FAN_OUTS), pick(random, LINE_LENGTHS));
+            byte[] bytes = generator.generate(workload, defects[i % defects.length]).getBytes();
+            add(String.format("%s%03d%s", GENERATED_PREFIX, i, BatchCompiler.SOURCE_SUFFIX), bytes);
+            if (i % MUTATED_EVERY == 0) {
+                add(String.format("%s%03d%s", MUTATED_PREFIX, i, BatchCompiler.SOURCE_SUFFIX),
+                        mutate(new String(bytes, StandardCharsets.UTF_8), random).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private void add(String name, byte[] bytes) throws IOException {
+        programs.add(new Program(name, Files.write(workDirectory.resolve(name), bytes), bytes));
+    }
+
+    /*
+     * The program with MUTATION put after a random space of it, or at its end if it has none
+     */
+    private static String mutate(String program, Random random) {
+        int position = program.indexOf(' ', random.nextInt(program.length() + 1));
+        position = position < 0 ? program.length() : position + 1;
+        return program.substring(0, position) + MUTATION + program.substring(position);
+    }
+
+    /**
+     * Compiles every program in every way, and prints every result that isn't the expected one
+     * @param out stream to print the differences and a summary to
+     * @return the number of differences
+     * @throws IOException if the cache can't be created
+     */
+    public int runAll(PrintStream out) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        try {
+            return runAll(out, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private int runAll(PrintStream out, ForkJoinPool pool) throws IOException {
+        differences = 0;
+        for (Program program : programs) {
+            if (!expected.containsKey(program.name)) {
+                out.println(program.name + ": no expected result in " + EXPECTED_FILE);
+                differences++;
+            }
+        }
+
+        check(out, "file", compileAll(program -> Sjavac.compile(program.file)));
+        check(out, "stream", compileAll(program ->
+                Sjavac.compile(new ByteArrayInputStream(program.bytes), new CompilationStats())));
+        try (CompilerService service = new CompilerService()) {
+            check(out, "service file", compileAll(program -> service.compile(program.file)));
+            check(out, "service text", compileAll(program ->
+                    service.compile(new String(program.bytes, Charset.defaultCharset()))));
+        }
+
+        List<Path> files = new ArrayList<>();
+        for (Program program : programs) {
+            files.add(program.file);
+        }
+        check(out, "batch", new BatchCompiler(PARALLELISM, null).compileAll(files));
+        ResultCache cache = new ResultCache(workDirectory.resolve("cache"), CACHE_SIZE);
+        check(out, "cached batch", new BatchCompiler(PARALLELISM, cache).compileAll(files));
+        check(out, "cache hits", new BatchCompiler(PARALLELISM, cache).compileAll(files));
+
+        //the method bodies are checked on the pool's threads
+        check(out, "parallel", compileAll(program -> pool.submit(() -> Sjavac.compile(program.file)).join()));
+        byte[] padding = PADDING_LINE.repeat(PADDING_LENGTH / PADDING_LINE.length())
+                .getBytes(StandardCharsets.US_ASCII);
+        check(out, "chunked", compileAll(program -> pool.submit(() ->
+                Sjavac.compile(program.file, ByteBuffer.wrap(pad(program.bytes, padding)))).join()));
+
+        out.println(programs.size() + " programs, " + differences + " differences");
+        return differences;
+    }
+
+    /*
+     * Compiles every program in a mode, turning a crash into a result that matches no expected line
+     */
+    private List<CompilationResult> compileAll(Mode mode) {
+        List<CompilationResult> results = new ArrayList<>();
+        for (Program program : programs) {
+            try {
+                results.add(mode.compile(program));
+            } catch (RuntimeException e) {
+                results.add(new CompilationResult(program.file, CompilationResult.INTERNAL_ERROR, CRASH_MSG + e));
+            }
+        }
+        return results;
+    }
+
+    private void check(PrintStream out, String mode, List<CompilationResult> results) {
+        for (int i = 0; i < programs.size(); i++) {
+            String name = programs.get(i).name;
+            String line = results.get(i).toLine();
+            if (expected.containsKey(name) && !expected.get(name).equals(line)) {
+                out.println(mode + ": " + name + ": expected \"" + expected.get(name) + "\" but got \"" + line +
+                        "\"");
+                differences++;
+            }
+        }
+    }
+
+    /*
+     * The program followed by the padding, starting on a line of its own
+     */
+    private static byte[] pad(byte[] program, byte[] padding) {
+        boolean endsLine = program.length == 0 || program[program.length - 1] == '\n';
+        byte[] padded = Arrays.copyOf(program, program.length + (endsLine ? 0 : 1) + padding.length);
+        if (!endsLine) {
+            padded[program.length] = '\n';
+        }
+        System.arraycopy(padding, 0, padded, padded.length - padding.length, padding.length);
+        return padded;
+    }
+
+    private static int pick(Random random, int[] choices) {
+        return choices[random.nextInt(choices.length)];
+    }
+
+    private static void delete(Path directory) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package oop.ex6.benchmarks;
+
+import oop.ex6.main.Sjavac;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Measures how the compile time and the peak heap of a whole validation grow with every parameter of a
+ * Workload. Every parameter is swept in turn while the others keep their BASELINE values, and every point is
+ * printed as a row of a text plot, and optionally written to a CSV file per parameter.
+ * Usage: ScalingHarness [--seed=N] [--runs=N] [--csv=DIR]
+ */
+public class ScalingHarness {
+    public static final String SEED_OPTION = "--seed=";
+    public static final String RUNS_OPTION = "--runs=";
+    public static final String CSV_OPTION = "--csv=";
+    public static final String UNKNOWN_OPTION_MSG = "Unknown option: ";
+    private static final String NUMBER_REGEX = "[1-9]\\d{0,8}";
+    private static final String CSV_HEADER = "value,bytes,millis,peak_heap_bytes";
+    private static final int WARMUP_RUNS = 3;
+    private static final int BAR_WIDTH = 40;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double BYTES_PER_MEGABYTE = 1 << 20;
+
+    private final WorkloadGenerator generator;
+    private final int runs;
+    private final Path csvDirectory;
+
+    /**
+     * A measured point of a sweep
+     */
+    private static class Point {
+        private final String value;
+        private final int bytes;
+        private final double millis;
+        private final long peakHeap;
+
+        private Point(String value, int bytes, double millis, long peakHeap) {
+            this.value = value;
+            this.bytes = bytes;
+            this.millis = millis;
+            this.peakHeap = peakHeap;
+        }
+    }
+
+    /**
+     * Constructor
+     * @param seed seed of the generated programs
+     * @param runs number of measured compilations of every program
+     * @param csvDirectory directory to write the sweeps to, or null to only print them
+     */
+    public ScalingHarness(long seed, int runs, Path csvDirectory) {
+        this.generator = new WorkloadGenerator(seed);
+        this.runs = runs;
+        this.csvDirectory = csvDirectory;
+    }
+
+    /**
+     * Main method
+     * @param args arguments from the command line
+     * @throws IOException if a CSV file can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        long seed = 1;
+        int runs = 5;
+        Path csvDirectory = null;
+        for (String arg : args) {
+            if (arg.startsWith(SEED_OPTION) && arg.substring(SEED_OPTION.length()).matches(NUMBER_REGEX)) {
+                seed = Long.parseLong(arg.substring(SEED_OPTION.length()));
+            } else if (arg.startsWith(RUNS_OPTION) && arg.substring(RUNS_OPTION.length()).matches(NUMBER_REGEX)) {
+                runs = Integer.parseInt(arg.substring(RUNS_OPTION.length()));
+            } else if (arg.startsWith(CSV_OPTION)) {
+                csvDirectory = Files.createDirectories(Paths.get(arg.substring(CSV_OPTION.length())));
+            } else {
+                System.err.println(UNKNOWN_OPTION_MSG + arg);
+                System.exit(1);
+            }
+        }
+        new ScalingHarness(seed, runs, csvDirectory).runAll(System.out);
+    }
+
+    /**
+     * Sweeps every parameter, then compiles the baseline with every defect
+     * @param out stream to print the plots to
+     * @throws IOException if a CSV file can't be written
+     */
+    public void runAll(PrintStream out) throws IOException {
+        Workload baseline = Workload.BASELINE;
+        out.println("baseline: " + baseline);
+        sweep(out, "methods", new int[]{50, 100, 200, 400, 800, 1600, 3200}, baseline::withMethods);
+        sweep(out, "globals", new int[]{0, 20, 80, 320, 1280, 5120}, baseline::withGlobals);
+        sweep(out, "depth", new int[]{0, 2, 4, 8, 16, 32, 64}, baseline::withDepth);
+        sweep(out, "statements", new int[]{4, 8, 16, 32, 64, 128}, baseline::withStatements);
+        sweep(out, "fanOut", new int[]{0, 1, 2, 4, 8, 16, 32}, baseline::withFanOut);
+        sweep(out, "lineLength", new int[]{20, 60, 120, 240, 480, 960}, baseline::withLineLength);
+
+        List<Point> points = new ArrayList<>();
+        for (Defect defect : Defect.values()) {
+            points.add(measure(defect.name(), generator.generate(baseline, defect).getBytes()));
+        }
+        report(out, "defect", points);
+    }
+
+    private void sweep(PrintStream out, String parameter, int[] values, IntFunction<Workload> workload)
+            throws IOException {
+        List<Point> points = new ArrayList<>();
+        for (int value : values) {
+            byte[] program = generator.generate(workload.apply(value), Defect.NONE).getBytes();
+            points.add(measure(Integer.toString(value), program));
+        }
+        report(out, parameter, points);
+    }
+
+    private Point measure(String value, byte[] program) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            Sjavac.compile(Programs.FILE, ByteBuffer.wrap(program));
+        }
+        long[] times = new long[runs];
+        long peakHeap = 0;
+        for (int i = 0; i < runs; i++) {
+            System.gc();
+            long before = resetPeakHeap();
+            long start = System.nanoTime();
+            Sjavac.compile(Programs.FILE, ByteBuffer.wrap(program));
+            times[i] = System.nanoTime() - start;
+            peakHeap = Math.max(peakHeap, peakHeap() - before);
+        }
+        Arrays.sort(times);
+        return new Point(value, program.length, times[runs / 2] / NANOS_PER_MILLI, peakHeap);
+    }
+
+    /**
+     * Resets the peak usage of every heap pool
+     * @return the heap in use right now
+     */
+    private static long resetPeakHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private void report(PrintStream out, String parameter, List<Point> points) throws IOException {
+        double maxMillis = 0, maxHeap = 0;
+        for (Point point : points) {
+            maxMillis = Math.max(maxMillis, point.millis);
+            maxHeap = Math.max(maxHeap, point.peakHeap);
+        }
+        out.println();
+        out.printf("%-22s %10s %10s %-" + BAR_WIDTH + "s %10s %s%n", parameter, "bytes", "ms", "time", "heap MB",
+                "peak heap");
+        List<String> csv = new ArrayList<>();
+        csv.add(CSV_HEADER);
+        for (Point point : points) {
+            out.printf("%-22s %10d %10.3f %-" + BAR_WIDTH + "s %10.2f %s%n", point.value, point.bytes, point.millis,
+                    bar(point.millis, maxMillis), point.peakHeap / BYTES_PER_MEGABYTE, bar(point.peakHeap, maxHeap));
+            csv.add(point.value + "," + point.bytes + "," + point.millis + "," + point.peakHeap);
+        }
+        if (csvDirectory != null) {
+            Files.write(csvDirectory.resolve(parameter + ".csv"), csv);
+        }
+    }
+
+    private static String bar(double value, double max) {
+        int length = max > 0 ? (int) Math.round(value / max * BAR_WIDTH) : 0;
+        StringBuilder bar = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            bar.append('#');
+        }
+        return bar.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package oop.ex6.benchmarks;
+
+import oop.ex6.compiler.Type;
+import oop.ex6.symbol_table.FlatSymbolTableManager;
+import oop.ex6.symbol_table.SymbolTableManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures symbol lookups and scope changes of both symbol table managers, at several scope depths.
+ * Every scope declares a few variables, the global scope also declares the variable that is looked up
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SymbolTableBenchmark {
+    private static final int VARIABLES_PER_SCOPE = 4;
+    private static final int GLOBAL = 0;
+
+    @Param({"linked", "flat"})
+    public String engine;
+
+    @Param({"1", "8", "64"})
+    public int depth;
+
+    private SymbolTableManager manager;
+    private int innermost;
+    private int nextSymbol;
+
+    @Setup
+    public void setUp() {
+        manager = engine.equals("flat") ? new FlatSymbolTableManager() : new SymbolTableManager();
+        nextSymbol = GLOBAL;
+        for (int scope = 0; scope < depth; scope++) {
+            manager.openScope();
+            for (int i = 0; i < VARIABLES_PER_SCOPE; i++) {
+                manager.addParameter(nextSymbol++, Type.INT, false);
+            }
+        }
+        innermost = nextSymbol - 1;
+    }
+
+    /**
+     * Looks up a global variable from the innermost scope, the slowest lookup of a linked list
+     */
+    @Benchmark
+    public int lookupGlobal() {
+        return manager.getParameter(GLOBAL);
+    }
+
+    /**
+     * Looks up a variable of the innermost scope
+     */
+    @Benchmark
+    public int lookupLocal() {
+        return manager.getParameter(innermost);
+    }
+
+    /**
+     * Checks if a global variable is only declared in the global scope
+     */
+    @Benchmark
+    public boolean isGlobal() {
+        return manager.isGlobal(GLOBAL);
+    }
+
+    /**
+     * Opens a scope, declares a few variables in it and closes it
+     */
+    @Benchmark
+    public int openAndCloseScope() {
+        manager.openScope();
+        for (int i = 0; i < VARIABLES_PER_SCOPE; i++) {
+            manager.addParameter(nextSymbol + i, Type.DOUBLE, false);
+        }
+        int size = manager.getSize();
+        manager.closeScope();
+        return size;
+    }
+}
@@ -0,0 +1,86 @@
+package oop.ex6.benchmarks;
+
+import oop.ex6.compiler.SJavaTokenizer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+
+/**
+ * Measures how fast SJavaTokenizer tokenizes a program, both with the byte lexer and with the regex
+ * it falls back to for non ASCII sources. The "tokens" counter is the number of tokens per second
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenizerBenchmark {
+    @Param({"ascii", "unicode"})
+    public String encoding;
+
+    @Param({"100"})
+    public int methods;
+
+    private byte[] program;
+
+    /**
+     * Counts the tokens read, reported per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Tokens {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        program = Programs.generate(methods, 2, encoding.equals("unicode"));
+    }
+
+    /**
+     * Tokenizes the whole program and creates every token's string, like the compilers do
+     */
+    @Benchmark
+    public void tokenize(Tokens counter, Blackhole blackhole) throws IOException {
+        SJavaTokenizer tokenizer = SJavaTokenizer.of(program);
+        while (tokenizer.getCurrentCommand() != null) {
+            blackhole.consume(tokenizer.getCurrentToken());
+            tokenizer.advance();
+            counter.tokens++;
+        }
+    }
+
+    /**
+     * Replays the already tokenized program, like the compilation engine does
+     */
+    @Benchmark
+    public void replay(Tokens counter, Blackhole blackhole) throws IOException {
+        SJavaTokenizer tokenizer = SJavaTokenizer.of(program);
+        while (tokenizer.getCurrentCommand() != null) {
+            tokenizer.advance();
+        }
+        tokenizer.rewind();
+        while (tokenizer.getCurrentCommand() != null) {
+            blackhole.consume(tokenizer.getCurrentKind());
+            tokenizer.advance();
+            counter.tokens++;
+        }
+    }
+}
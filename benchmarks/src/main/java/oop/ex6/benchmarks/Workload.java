@@ -0,0 +1,94 @@
+package oop.ex6.benchmarks;
+
+/**
+ * The parameters of a generated SJava program. Workloads are immutable, every with method returns a copy
+ * that differs from this one in a single parameter, so a harness can sweep one parameter at a time
+ */
+public class Workload {
+    /**
+     * A moderate program, the starting point of every sweep
+     */
+    public static final Workload BASELINE = new Workload(200, 20, 2, 12, 2, 60);
+
+    private final int methods;
+    private final int globals;
+    private final int depth;
+    private final int statements;
+    private final int fanOut;
+    private final int lineLength;
+
+    /**
+     * Constructor
+     * @param methods number of methods in the program
+     * @param globals number of global variables in the program
+     * @param depth how deeply the if and while scopes of every method are nested
+     * @param statements number of statements in every method, spread over its scopes
+     * @param fanOut number of calls every method makes to other methods
+     * @param lineLength number of characters a declaration line is filled up to
+     */
+    public Workload(int methods, int globals, int depth, int statements, int fanOut, int lineLength) {
+        if (methods < 1 || globals < 0 || depth < 0 || statements < 1 || fanOut < 0 || lineLength < 1) {
+            throw new IllegalArgumentException("Workload parameters must be positive");
+        }
+        this.methods = methods;
+        this.globals = globals;
+        this.depth = depth;
+        this.statements = statements;
+        this.fanOut = fanOut;
+        this.lineLength = lineLength;
+    }
+
+    public int getMethods() {
+        return methods;
+    }
+
+    public int getGlobals() {
+        return globals;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getFanOut() {
+        return fanOut;
+    }
+
+    public int getLineLength() {
+        return lineLength;
+    }
+
+    public Workload withMethods(int methods) {
+        return new Workload(methods, globals, depth, statements, fanOut, lineLength);
+    }
+
+    public Workload withGlobals(int globals) {
+        return new Workload(methods, globals, depth, statements, fanOut, lineLength);
+    }
+
+    public Workload withDepth(int depth) {
+        return new Workload(methods, globals, depth, statements, fanOut, lineLength);
+    }
+
+    public Workload withStatements(int statements) {
+        return new Workload(methods, globals, depth, statements, fanOut, lineLength);
+    }
+
+    public Workload withFanOut(int fanOut) {
+        return new Workload(methods, globals, depth, statements, fanOut, lineLength);
+    }
+
+    public Workload withLineLength(int lineLength) {
+        return new Workload(methods, globals, depth, statements, fanOut, lineLength);
+    }
+
+    @Override
+    public String toString() {
+        return "methods=" + methods + " globals=" + globals + " depth=" + depth + " statements=" + statements +
+                " fanOut=" + fanOut + " lineLength=" + lineLength;
+    }
+}
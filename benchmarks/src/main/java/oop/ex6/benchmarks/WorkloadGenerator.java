@@ -0,0 +1,324 @@
+package oop.ex6.benchmarks;
+
+import oop.ex6.compiler.ValidationException;
+import oop.ex6.main.CompilationResult;
+import oop.ex6.main.Sjavac;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates SJava programs of a given Workload. A generator with the same seed always generates the same
+ * programs, so an experiment can be repeated exactly. A program may be given a Defect, placed in a random
+ * statement of a random method, and every generated program is compiled once to make sure it fails exactly
+ * where it should, or not at all
+ */
+public class WorkloadGenerator {
+    private static final String[] TYPES = {"int", "double", "boolean", "char", "String"};
+    private static final int INT = 0, DOUBLE = 1, BOOLEAN = 2, CHAR = 3, STRING = 4;
+    private static final int MAX_PARAMETERS = 4;
+    private static final String INDENT = "    ";
+    private static final String FINAL_GLOBAL = "RATIO";
+    private static final String CHAR_GLOBAL = "LETTER";
+    private static final String STRING_GLOBAL = "NAME";
+    private static final String UNINITIALIZED = "unset";
+
+    private final Random random;
+    private final StringBuilder program = new StringBuilder();
+    private final List<Variable> visible = new ArrayList<>();
+    private int[][] signatures;
+    private int lines;
+    private int locals;
+    private boolean quoted;
+
+    /**
+     * A variable in scope at the point being generated
+     */
+    private static class Variable {
+        private final String name;
+        private final int type;
+        private final boolean isFinal;
+
+        private Variable(String name, int type, boolean isFinal) {
+            this.name = name;
+            this.type = type;
+            this.isFinal = isFinal;
+        }
+    }
+
+    /**
+     * A generated program, with the place of its defect
+     */
+    public static class GeneratedProgram {
+        private final byte[] bytes;
+        private final Defect defect;
+        private final int defectLine;
+
+        private GeneratedProgram(byte[] bytes, Defect defect, int defectLine) {
+            this.bytes = bytes;
+            this.defect = defect;
+            this.defectLine = defectLine;
+        }
+
+        /**
+         * getter for the program's bytes
+         * @return the program, encoded in UTF-8
+         */
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * getter for the program's defect
+         * @return the defect, NONE if the program is legal
+         */
+        public Defect getDefect() {
+            return defect;
+        }
+
+        /**
+         * getter for the line of the program's defect
+         * @return the line number of the defect counting from 1, or 0 if the program is legal
+         */
+        public int getDefectLine() {
+            return defectLine;
+        }
+    }
+
+    /**
+     * Constructor
+     * @param seed the seed of every random choice the generator makes
+     */
+    public WorkloadGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates a program
+     * @param workload the program's parameters
+     * @param defect the error to put in the program, or NONE for a legal program
+     * @return the generated program
+     * @throws IllegalStateException if the compiler doesn't fail the program exactly as expected
+     */
+    public GeneratedProgram generate(Workload workload, Defect defect) {
+        program.setLength(0);
+        visible.clear();
+        lines = 0;
+        int methods = workload.getMethods();
+        int depth = workload.getDepth();
+
+        //the first method always takes an int first, so the defects have a signature to break
+        signatures = new int[methods][];
+        for (int i = 0; i < methods; i++) {
+            signatures[i] = new int[i == 0 ? 1 + random.nextInt(MAX_PARAMETERS) : random.nextInt(MAX_PARAMETERS + 1)];
+            for (int j = 0; j < signatures[i].length; j++) {
+                signatures[i][j] = i == 0 && j == 0 ? INT : random.nextInt(TYPES.length);
+            }
+        }
+
+        line(0, "final double " + FINAL_GLOBAL + " = 1.5;");
+        visible.add(new Variable(FINAL_GLOBAL, DOUBLE, true));
+        line(0, "char " + CHAR_GLOBAL + " = 'a';");
+        visible.add(new Variable(CHAR_GLOBAL, CHAR, false));
+        line(0, "String " + STRING_GLOBAL + " = \"sjava\";");
+        visible.add(new Variable(STRING_GLOBAL, STRING, false));
+        for (int i = 0; i < workload.getGlobals(); i++) {
+            int type = i % TYPES.length;
+            line(0, TYPES[type] + " g" + i + " = " + literal(type) + ";");
+            visible.add(new Variable("g" + i, type, false));
+        }
+
+        //the defect's method, scope and position among that scope's statements
+        int defectMethod = random.nextInt(methods);
+        int defectScope = random.nextInt(depth + 1);
+        int defectIndex = random.nextInt(statementsIn(workload, defectScope));
+        int defectLine = 0;
+
+        for (int i = 0; i < methods; i++) {
+            locals = 0;
+            int globalsEnd = visible.size();
+            StringBuilder declaration = new StringBuilder("void m").append(i).append("(");
+            for (int j = 0; j < signatures[i].length; j++) {
+                declaration.append(j > 0 ? ", " : "").append(TYPES[signatures[i][j]]).append(" p").append(j);
+                visible.add(new Variable("p" + j, signatures[i][j], false));
+            }
+            line(0, declaration.append(") {").toString());
+
+            List<Integer> scopeStarts = new ArrayList<>();
+            for (int scope = 0; scope <= depth; scope++) {
+                if (scope > 0) {
+                    line(scope, (scope % 2 == 1 ? "if (" : "while (") + condition() + ") {");
+                    scopeStarts.add(visible.size());
+                }
+                int statements = statementsIn(workload, scope);
+                for (int k = 0; k < statements; k++) {
+                    if (defect != Defect.NONE && i == defectMethod && scope == defectScope && k == defectIndex) {
+                        defectLine = defect(defect, scope);
+                    }
+                    statement(scope, workload.getLineLength());
+                }
+            }
+            for (int k = 0; k < workload.getFanOut(); k++) {
+                call(depth, random.nextInt(methods));
+            }
+            for (int scope = depth; scope > 0; scope--) {
+                truncate(scopeStarts.remove(scopeStarts.size() - 1));
+                line(scope, "}");
+            }
+            line(1, "return;");
+            line(0, "}");
+            truncate(globalsEnd);
+        }
+
+        byte[] bytes = program.toString().getBytes(StandardCharsets.UTF_8);
+        check(bytes, defect, defectLine);
+        return new GeneratedProgram(bytes, defect, defectLine);
+    }
+
+    private static int statementsIn(Workload workload, int scope) {
+        //every scope gets at least one statement, so no scope is ever empty
+        int perScope = Math.max(1, workload.getStatements() / (workload.getDepth() + 1));
+        return scope == 0 ? Math.max(1, workload.getStatements() - perScope * workload.getDepth()) : perScope;
+    }
+
+    private void statement(int scope, int lineLength) {
+        List<Variable> assignable = new ArrayList<>();
+        for (Variable variable : visible) {
+            if (!variable.isFinal) {
+                assignable.add(variable);
+            }
+        }
+        if (assignable.isEmpty() || random.nextBoolean()) {
+            //a declaration, filled with more variables up to the line length
+            int type = random.nextInt(TYPES.length);
+            boolean isFinal = random.nextInt(4) == 0;
+            StringBuilder declaration = new StringBuilder(isFinal ? "final " : "").append(TYPES[type]).append(' ');
+            List<Variable> declared = new ArrayList<>();
+            do {
+                String name = "v" + locals++;
+                declaration.append(declared.isEmpty() ? "" : ", ").append(name).append(" = ").append(value(type));
+                declared.add(new Variable(name, type, isFinal));
+            } while (declaration.length() < lineLength);
+            visible.addAll(declared);
+            line(scope + 1, declaration.append(';').toString());
+        } else {
+            Variable variable = assignable.get(random.nextInt(assignable.size()));
+            line(scope + 1, variable.name + " = " + value(variable.type) + ";");
+        }
+    }
+
+    private void call(int scope, int method) {
+        StringBuilder call = new StringBuilder("m").append(method).append("(");
+        for (int j = 0; j < signatures[method].length; j++) {
+            call.append(j > 0 ? ", " : "").append(value(signatures[method][j]));
+        }
+        line(scope + 1, call.append(");").toString());
+    }
+
+    private int defect(Defect defect, int scope) {
+        StringBuilder line = new StringBuilder();
+        switch (defect) {
+            case SIGNATURE_MISMATCH:
+                line.append("m0(2.5");
+                break;
+            case UNDEFINED_METHOD:
+                line(scope + 1, "missing();");
+                return lines;
+            case FINAL_ASSIGNMENT:
+                line(scope + 1, FINAL_GLOBAL + " = 2.5;");
+                return lines;
+            default:
+                line(scope + 1, "int " + UNINITIALIZED + ";");
+                line.append("m0(").append(UNINITIALIZED);
+        }
+        for (int j = 1; j < signatures[0].length; j++) {
+            line.append(", ").append(value(signatures[0][j]));
+        }
+        line(scope + 1, line.append(");").toString());
+        return lines;
+    }
+
+    private String condition() {
+        StringBuilder condition = new StringBuilder(term());
+        for (int i = random.nextInt(3); i > 0; i--) {
+            condition.append(random.nextBoolean() ? " && " : " || ").append(term());
+        }
+        return condition.toString();
+    }
+
+    private String term() {
+        List<Variable> terms = new ArrayList<>();
+        for (Variable variable : visible) {
+            if (variable.type <= BOOLEAN) {
+                terms.add(variable);
+            }
+        }
+        if (terms.isEmpty() || random.nextBoolean()) {
+            return literal(random.nextInt(BOOLEAN + 1));
+        }
+        return terms.get(random.nextInt(terms.size())).name;
+    }
+
+    private String value(int type) {
+        //a quoted literal takes everything up to the last quote of its line, so a line only gets one of them
+        boolean secondQuote = type >= CHAR && quoted;
+        if (secondQuote || random.nextBoolean()) {
+            List<Variable> sameType = new ArrayList<>();
+            for (Variable variable : visible) {
+                if (variable.type == type) {
+                    sameType.add(variable);
+                }
+            }
+            if (!sameType.isEmpty()) {
+                return sameType.get(random.nextInt(sameType.size())).name;
+            }
+        }
+        quoted |= type >= CHAR;
+        return literal(type);
+    }
+
+    private String literal(int type) {
+        switch (type) {
+            case INT:
+                return Integer.toString(random.nextInt(2000) - 1000);
+            case DOUBLE:
+                return random.nextInt(100) + "." + random.nextInt(100);
+            case BOOLEAN:
+                return random.nextBoolean() ? "true" : "false";
+            case CHAR:
+                return "'" + (char) ('a' + random.nextInt(26)) + "'";
+            default:
+                return "\"s" + random.nextInt(1000) + "\"";
+        }
+    }
+
+    private void line(int indent, String text) {
+        for (int i = 0; i < indent; i++) {
+            program.append(INDENT);
+        }
+        program.append(text).append('\n');
+        lines++;
+        quoted = false;
+    }
+
+    private void truncate(int size) {
+        while (visible.size() > size) {
+            visible.remove(visible.size() - 1);
+        }
+    }
+
+    private static void check(byte[] bytes, Defect defect, int defectLine) {
+        CompilationResult result = Sjavac.compile(Programs.FILE, ByteBuffer.wrap(bytes));
+        ValidationException error = result.getError();
+        boolean expected = defect == Defect.NONE ? result.getCode() == CompilationResult.NO_ERROR :
+                error != null && error.getKind() == defect.getKind() && error.getLine() == defectLine;
+        if (!expected) {
+            throw new IllegalStateException("Generated a program that doesn't fail with " + defect + " on line " +
+                    defectLine + ": " + (error == null ? result.getMessage() : error.getLine() + ": " +
+                    error.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package oop.ex6.cache;
+
+import oop.ex6.compiler.AsciiText;
+import oop.ex6.compiler.IdentifierTable;
+import oop.ex6.compiler.Type;
+import oop.ex6.symbol_table.Data;
+import oop.ex6.symbol_table.SymbolTableManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A binary summary of the declarations the initializer finds in a program: its methods with their signatures, and
+ * its globals with their types and whether they're final and initialized, as they are once the main scope is done.
+ * A summary carries the hash of the content it was made of, so it can stand in for the initialization of that
+ * content.
+ * The summary is a versioned binary format of fixed size records, read in place from a heap buffer or a memory
+ * mapped file:
+ *   header   - magic, format version, content hash, number of methods, number of globals
+ *   methods  - name offset, name length, signature offset, number of parameters
+ *   globals  - name offset, name length, type ordinal, flags
+ *   then the signatures' Type ordinals and the ASCII names, which the records point into
+ */
+public class ProgramSummary {
+    public static final int VERSION = 1;
+    private static final int MAGIC = 0x534A534D;
+    private static final int HASH_LENGTH = 32;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String INVALID_SUMMARY_MSG = "Not a valid program summary: ";
+    private static final Type[] TYPES = Type.values();
+
+    //Header
+    private static final int VERSION_OFFSET = 4;
+    private static final int HASH_OFFSET = 8;
+    private static final int METHOD_COUNT_OFFSET = HASH_OFFSET + HASH_LENGTH;
+    private static final int GLOBAL_COUNT_OFFSET = METHOD_COUNT_OFFSET + 4;
+    private static final int HEADER_LENGTH = GLOBAL_COUNT_OFFSET + 4;
+
+    //Records
+    private static final int METHOD_LENGTH = 16;
+    private static final int GLOBAL_LENGTH = 12;
+    private static final int NAME_LENGTH_OFFSET = 4;
+    private static final int SIGNATURE_OFFSET = 8;
+    private static final int PARAMETER_COUNT_OFFSET = 12;
+    private static final int TYPE_OFFSET = 8;
+    private static final int FLAGS_OFFSET = 9;
+
+    //Flags
+    private static final byte FINAL = 1;
+    private static final byte INITIALIZED = 2;
+
+    private final ByteBuffer buffer;
+    private final int methodCount;
+    private final int globalCount;
+
+    private ProgramSummary(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.methodCount = buffer.getInt(METHOD_COUNT_OFFSET);
+        this.globalCount = buffer.getInt(GLOBAL_COUNT_OFFSET);
+    }
+
+    /**
+     * Summarizes the declarations of an initialized program
+     * @param hash the hash of the program's content, as ResultCache.hash computes it
+     * @param identifiers the identifiers of the program
+     * @param manager the symbol tables the initializer filled
+     * @param methods identifier ids of the program's methods
+     * @param globals identifier ids of the program's globals
+     * @return the summary
+     */
+    public static ProgramSummary of(byte[] hash, IdentifierTable identifiers, SymbolTableManager manager,
+                                    List<Integer> methods, List<Integer> globals) {
+        String[] methodNames = new String[methods.size()];
+        String[] globalNames = new String[globals.size()];
+        int signaturesLength = 0, namesLength = 0;
+        for (int i = 0; i < methods.size(); i++) {
+            methodNames[i] = identifiers.getName(methods.get(i));
+            byte[] signature = manager.getSignature(methods.get(i));
+            signaturesLength += signature == null ? 0 : signature.length;
+            namesLength += methodNames[i].length();
+        }
+        for (int i = 0; i < globals.size(); i++) {
+            globalNames[i] = identifiers.getName(globals.get(i));
+            namesLength += globalNames[i].length();
+        }
+        int signatures = HEADER_LENGTH + methods.size() * METHOD_LENGTH + globals.size() * GLOBAL_LENGTH;
+        int names = signatures + signaturesLength;
+        ByteBuffer buffer = ByteBuffer.allocate(names + namesLength);
+        buffer.putInt(MAGIC).putInt(VERSION).put(hash).putInt(methods.size()).putInt(globals.size());
+        for (int i = 0; i < methods.size(); i++) {
+            byte[] signature = manager.getSignature(methods.get(i));
+            int parameters = signature == null ? 0 : signature.length;
+            buffer.putInt(names).putInt(methodNames[i].length()).putInt(signatures).putInt(parameters);
+            names = putName(buffer, names, methodNames[i]);
+            if (signature != null) {
+                buffer.put(signatures, signature);
+                signatures += parameters;
+            }
+        }
+        for (int i = 0; i < globals.size(); i++) {
+            int data = manager.getParameter(globals.get(i));
+            byte flags = (byte) ((Data.isFinal(data) ? FINAL : 0) | (Data.getInitialized(data) ? INITIALIZED : 0));
+            buffer.putInt(names).putInt(globalNames[i].length());
+            buffer.put((byte) Data.getType(data).ordinal()).put(flags).putShort((short) 0);
+            names = putName(buffer, names, globalNames[i]);
+        }
+        return new ProgramSummary(buffer.clear());
+    }
+
+    /**
+     * Loads a summary by mapping its file, so only the parts that are read are loaded
+     * @param file the summary's file
+     * @return the summary
+     * @throws IOException if the file can't be read or isn't a valid summary of this version
+     */
+    public static ProgramSummary load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a summary out of its bytes
+     * @param buffer the summary's bytes, from index 0 to the buffer's limit
+     * @return the summary
+     * @throws IOException if the bytes aren't a valid summary of this version
+     */
+    public static ProgramSummary read(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_LENGTH || buffer.getInt(0) != MAGIC ||
+                buffer.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException(INVALID_SUMMARY_MSG + "unknown format");
+        }
+        ProgramSummary summary = new ProgramSummary(buffer);
+        long records = HEADER_LENGTH + (long) summary.methodCount * METHOD_LENGTH +
+                (long) summary.globalCount * GLOBAL_LENGTH;
+        if (summary.methodCount < 0 || summary.globalCount < 0 || records > buffer.limit()) {
+            throw new IOException(INVALID_SUMMARY_MSG + "truncated records");
+        }
+        for (int i = 0; i < summary.methodCount; i++) {
+            int record = summary.methodRecord(i);
+            summary.checkRange(record);
+            summary.checkRange(record + SIGNATURE_OFFSET);
+            for (int parameter = 0; parameter < summary.getParameterCount(i); parameter++) {
+                summary.checkType(buffer.get(buffer.getInt(record + SIGNATURE_OFFSET) + parameter));
+            }
+        }
+        for (int i = 0; i < summary.globalCount; i++) {
+            summary.checkRange(summary.globalRecord(i));
+            summary.checkType(buffer.get(summary.globalRecord(i) + TYPE_OFFSET));
+        }
+        return summary;
+    }
+
+    /**
+     * Writes the summary to a file, replacing it at once so a reader never sees a partial summary
+     * @param file the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), TEMPORARY_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer bytes = buffer.duplicate().clear();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Checks if the summary was made of some content
+     * @param hash the hash of the content, as ResultCache.hash computes it
+     * @return true if the summary is of the content, false otherwise
+     */
+    public boolean matches(byte[] hash) {
+        byte[] own = new byte[HASH_LENGTH];
+        buffer.get(HASH_OFFSET, own);
+        return Arrays.equals(own, hash);
+    }
+
+    /**
+     * Declares the summarized methods and globals in the global scope of a program's symbol tables, as the
+     * initializer would have. The names are only looked up, so they must all be identifiers of the program
+     * @param manager symbol tables without any scope open
+     * @param identifiers the identifiers of the program the summary was made of
+     * @return true if the names were all found and declared, false if nothing was declared
+     */
+    public boolean declare(SymbolTableManager manager, IdentifierTable identifiers) {
+        AsciiText text = new AsciiText(buffer);
+        int[] symbols = new int[methodCount + globalCount];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = find(identifiers, text, i < methodCount ? methodRecord(i) : globalRecord(i - methodCount));
+            if (symbols[i] == IdentifierTable.NO_IDENTIFIER) {
+                return false;
+            }
+        }
+        manager.openScope();
+        for (int i = 0; i < methodCount; i++) {
+            manager.addMethod(symbols[i]);
+            if (getParameterCount(i) > 0) {
+                byte[] signature = new byte[getParameterCount(i)];
+                buffer.get(buffer.getInt(methodRecord(i) + SIGNATURE_OFFSET), signature);
+                manager.setSignature(symbols[i], signature);
+            }
+        }
+        for (int i = 0; i < globalCount; i++) {
+            int symbol = symbols[methodCount + i];
+            manager.addParameter(symbol, getGlobalType(i), isGlobalFinal(i));
+            if (isGlobalInitialized(i)) {
+                manager.initialized(symbol);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * getter for the number of methods
+     * @return number of summarized methods
+     */
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    /**
+     * Creates the name of a method
+     * @param method index of the method, in the order of the file
+     * @return the method's name
+     */
+    public String getMethodName(int method) {
+        return nameOf(methodRecord(method));
+    }
+
+    /**
+     * getter for the number of a method's parameters
+     * @param method index of the method
+     * @return number of parameters
+     */
+    public int getParameterCount(int method) {
+        return buffer.getInt(methodRecord(method) + PARAMETER_COUNT_OFFSET);
+    }
+
+    /**
+     * getter for the type of a method's parameter
+     * @param method index of the method
+     * @param parameter index of the parameter
+     * @return the parameter's type
+     */
+    public Type getParameterType(int method, int parameter) {
+        return TYPES[buffer.get(buffer.getInt(methodRecord(method) + SIGNATURE_OFFSET) + parameter)];
+    }
+
+    /**
+     * getter for the number of globals
+     * @return number of summarized global variables
+     */
+    public int getGlobalCount() {
+        return globalCount;
+    }
+
+    /**
+     * Creates the name of a global
+     * @param global index of the global, in the order of the file
+     * @return the global's name
+     */
+    public String getGlobalName(int global) {
+        return nameOf(globalRecord(global));
+    }
+
+    /**
+     * getter for the type of a global
+     * @param global index of the global
+     * @return the global's type
+     */
+    public Type getGlobalType(int global) {
+        return TYPES[buffer.get(globalRecord(global) + TYPE_OFFSET)];
+    }
+
+    /**
+     * @param global index of the global
+     * @return true if the global is final, false otherwise
+     */
+    public boolean isGlobalFinal(int global) {
+        return (buffer.get(globalRecord(global) + FLAGS_OFFSET) & FINAL) != 0;
+    }
+
+    /**
+     * @param global index of the global
+     * @return true if the global is initialized once the main scope is done, false otherwise
+     */
+    public boolean isGlobalInitialized(int global) {
+        return (buffer.get(globalRecord(global) + FLAGS_OFFSET) & INITIALIZED) != 0;
+    }
+
+    private int methodRecord(int method) {
+        return HEADER_LENGTH + method * METHOD_LENGTH;
+    }
+
+    private int globalRecord(int global) {
+        return HEADER_LENGTH + methodCount * METHOD_LENGTH + global * GLOBAL_LENGTH;
+    }
+
+    private String nameOf(int record) {
+        byte[] name = new byte[buffer.getInt(record + NAME_LENGTH_OFFSET)];
+        buffer.get(buffer.getInt(record), name);
+        return new String(name, StandardCharsets.US_ASCII);
+    }
+
+    private int find(IdentifierTable identifiers, AsciiText text, int record) {
+        int start = buffer.getInt(record);
+        return identifiers.find(text, start, start + buffer.getInt(record + NAME_LENGTH_OFFSET));
+    }
+
+    private static int putName(ByteBuffer buffer, int offset, String name) {
+        buffer.put(offset, name.getBytes(StandardCharsets.US_ASCII));
+        return offset + name.length();
+    }
+
+    //checks that the offset and length at the start of a record are in the buffer
+    private void checkRange(int record) throws IOException {
+        int offset = buffer.getInt(record), length = buffer.getInt(record + NAME_LENGTH_OFFSET);
+        if (offset < 0 || length < 0 || (long) offset + length > buffer.limit()) {
+            throw new IOException(INVALID_SUMMARY_MSG + "record out of range");
+        }
+    }
+
+    private void checkType(byte ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= TYPES.length) {
+            throw new IOException(INVALID_SUMMARY_MSG + "unknown type");
+        }
+    }
+}
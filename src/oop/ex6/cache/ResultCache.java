@@ -0,0 +1,184 @@
+package oop.ex6.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk cache of compilation results, keyed by a hash of a source's content and the compiler's version.
+ * Every entry is a small file holding a single result line. Entries are touched whenever they're read, and
+ * when the entries grow beyond the cache's size the least recently used ones are evicted
+ */
+public class ResultCache {
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int SHARD_LENGTH = 2;
+    private static final double EVICTION_RATIO = 0.9;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param directory directory to keep the entries in, created if it doesn't exist
+     * @param maxBytes the total size of entries the cache keeps, an existing larger cache is evicted at once
+     * @throws IOException if the directory can't be created or read
+     */
+    public ResultCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        for (Path entry : entries()) {
+            size.addAndGet(sizeOf(entry));
+        }
+        evict();
+    }
+
+    /**
+     * Computes the key of a source's content
+     * @param compilerVersion version of the compiler that validates the source
+     * @param content the source's bytes, from index 0 to the buffer's limit
+     * @return the key of the content, as a hex string
+     */
+    public static String key(String compilerVersion, ByteBuffer content) {
+        byte[] hash = hash(compilerVersion, content);
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Computes the hash of a source's content, which its key is made of
+     * @param compilerVersion version of the compiler that validates the source
+     * @param content the source's bytes, from index 0 to the buffer's limit
+     * @return the SHA-256 hash of the compiler's version and the content
+     */
+    public static byte[] hash(String compilerVersion, ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            digest.update(compilerVersion.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(content.duplicate().position(0));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            //every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Looks for a cached result
+     * @param key the key of the source's content
+     * @return the cached result line if found, null otherwise
+     */
+    public String get(String key) {
+        Path entry = pathOf(key);
+        try {
+            String line = Files.readString(entry, StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return line;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Caches a result, and evicts the least recently used entries if the cache grows too large
+     * @param key the key of the source's content
+     * @param line the result line to cache
+     */
+    public void put(String key, String line) {
+        Path entry = pathOf(key);
+        try {
+            Files.createDirectories(entry.getParent());
+            Path temporary = Files.createTempFile(entry.getParent(), key, TEMPORARY_SUFFIX);
+            long previous = sizeOf(entry);
+            try {
+                Files.writeString(temporary, line, StandardCharsets.UTF_8);
+                Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            if (size.addAndGet(sizeOf(entry) - previous) > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            //a result that couldn't be cached will simply be compiled again
+        }
+    }
+
+    private synchronized void evict() throws IOException {
+        if (size.get() <= maxBytes) {
+            return;
+        }
+        List<Path> entries = entries();
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path entry : entries) {
+            times.put(entry, lastModified(entry));
+        }
+        entries.sort(Comparator.comparing(times::get));
+        for (Path entry : entries) {
+            if (size.get() <= maxBytes * EVICTION_RATIO) {
+                break;
+            }
+            long entrySize = sizeOf(entry);
+            if (Files.deleteIfExists(entry)) {
+                size.addAndGet(-entrySize);
+            }
+        }
+    }
+
+    private List<Path> entries() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(file -> Files.isRegularFile(file) && !file.toString().endsWith(TEMPORARY_SUFFIX))
+                    .forEach(entries::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return entries;
+    }
+
+    private Path pathOf(String key) {
+        return directory.resolve(key.substring(0, SHARD_LENGTH)).resolve(key);
+    }
+
+    private static long sizeOf(Path entry) {
+        try {
+            return Files.size(entry);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
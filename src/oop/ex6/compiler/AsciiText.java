@@ -0,0 +1,76 @@
+package oop.ex6.compiler;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A read only view of ASCII encoded bytes as characters, so tokens and lines can refer to the raw source
+ * without decoding or copying it. The bytes may be a heap array or a memory mapped file
+ */
+public class AsciiText implements CharSequence {
+    private final ByteBuffer bytes;
+
+    /**
+     * Constructor
+     * @param bytes ASCII encoded bytes, from index 0 to the buffer's limit
+     */
+    public AsciiText(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Checks if all the given bytes are ASCII characters
+     * @param bytes bytes to check, from index 0 to the buffer's limit
+     * @return true if all bytes are ASCII, false otherwise
+     */
+    public static boolean isAscii(ByteBuffer bytes) {
+        if (bytes.hasArray()) {
+            byte[] array = bytes.array();
+            int end = bytes.arrayOffset() + bytes.limit();
+            for (int i = bytes.arrayOffset(); i < end; i++) {
+                if (array[i] < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int i = 0; i < bytes.limit(); i++) {
+            if (bytes.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return bytes.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) bytes.get(index);
+    }
+
+    /**
+     * Creates the string value of a range of characters
+     * @param start offset of the first character
+     * @param end offset after the last character
+     * @return a string holding the range
+     */
+    @Override
+    public String subSequence(int start, int end) {
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + start, end - start,
+                    StandardCharsets.ISO_8859_1);
+        }
+        byte[] copy = new byte[end - start];
+        bytes.get(start, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, bytes.limit());
+    }
+}
@@ -0,0 +1,85 @@
+package oop.ex6.compiler;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Tokenizes the rest of a large ASCII source at once, on several threads.
+ * Tokens never span lines, so the source is split into chunks of whole lines, each chunk is tokenized by a
+ * SJavaLexer of its own into a buffer of its own, and the chunks are joined in order into the program's buffer
+ */
+class ChunkedLexer {
+    //Sources with this many bytes left to tokenize are tokenized in parallel, in chunks of about CHUNK_LENGTH bytes
+    private static final int PARALLEL_THRESHOLD = 1 << 22;
+    private static final int CHUNK_LENGTH = 1 << 20;
+    private static final byte NEW_LINE = '\n';
+
+    private ChunkedLexer() {
+    }
+
+    /**
+     * Tokenizes the rest of the source in chunks and appends them to the buffer, if enough of it is left and
+     * the pool it would be tokenized on has more than one thread. Chunks end right after a '\n', so no line is
+     * split between two of them
+     * @param source the raw bytes of the program
+     * @param lexer the lexer of the program, which has read up to where the chunks start
+     * @param buffer the program's buffer
+     * @return true if the rest of the source was tokenized, false if it's left to the lexer
+     */
+    static boolean tokenizeRest(ByteBuffer source, SJavaLexer lexer, TokenBuffer buffer) {
+        int start = lexer.getPosition();
+        //the chunks are tokenized on the pool of the thread that tokenizes, the common pool if it's in none
+        ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        if (source.limit() - start < PARALLEL_THRESHOLD || pool.getParallelism() <= 1) {
+            return false;
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        while (start < source.limit()) {
+            int end = Math.min(start + CHUNK_LENGTH, source.limit());
+            while (end < source.limit() && source.get(end - 1) != NEW_LINE) {
+                end++;
+            }
+            chunks.add(new Chunk(source, buffer, start, end));
+            start = end;
+        }
+        ForkJoinTask.invokeAll(chunks);
+        int lineNumber = lexer.getLineNumber();
+        for (Chunk chunk : chunks) {
+            buffer.append(chunk.part, lineNumber);
+            lineNumber += chunk.lineCount;
+        }
+        return true;
+    }
+
+    /**
+     * Tokenizes a chunk of whole lines of the source into a buffer of its own, whose line numbers start from 1
+     */
+    private static class Chunk extends RecursiveAction {
+        private final ByteBuffer source;
+        private final int start;
+        private final int end;
+        private final TokenBuffer part;
+        //number of the chunk's lines, empty and comment lines too
+        private int lineCount;
+
+        Chunk(ByteBuffer source, TokenBuffer buffer, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            this.part = new TokenBuffer(buffer.getText());
+        }
+
+        @Override
+        protected void compute() {
+            SJavaLexer chunkLexer = new SJavaLexer(source, part, start, end, 1);
+            while (chunkLexer.tokenizeLine()) {
+                //every line is recorded in the part
+            }
+            lineCount = chunkLexer.getLineNumber();
+        }
+    }
+}
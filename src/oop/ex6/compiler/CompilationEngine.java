@@ -1,22 +1,37 @@
 package oop.ex6.compiler;
-import oop.ex6.validation.Validator;
+import oop.ex6.events.CompilerPassEvent;
+import oop.ex6.events.MethodValidationEvent;
 import oop.ex6.symbol_table.*;
 
 import java.io.IOException;
 import java.util.*;
 import java.util.ArrayList;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * A class for compiling an SJava file
+ * A class for compiling an SJava file.
+ * Once the initializer has found all the methods and globals, every method body can be checked on its own, so the
+ * main scope is walked first and the method bodies are then checked in parallel, each with its own tokenizer and
+ * symbol tables. The reported error is always the first one in the file.
+ * Statements are compiled one at a time without recursing into the blocks they open: an if or a while only
+ * compiles its condition and opens its block, and the '}' that closes a block is compiled like a statement, so
+ * any depth of nesting is compiled with the same Java stack
  */
 public class CompilationEngine extends SJavaCompiler {
 
-    private static final String SIGNATURE_DOESNT_MATCH_MSG = "Method signature doesn't match the given parameters";
-    private static final String METHOD_DOESNT_EXIST_MSG = "Called to method that doesn't exist";
-    private static final String ILLEGAL_EXPRESSION_MSG = "Illegal start of expression";
-    private static final String NOT_BOOLEAN_TERM_MSG = "Not a boolean term";
-    private static final String ILLEGAL_LINE_END_MSG = "Line has to end with one of [{,},;]";
+    //Method bodies of fewer tokens than this are checked by a single thread
+    private static final int SPLIT_THRESHOLD = 4096;
 
+    private final ArrayList<Integer> methodStarts = new ArrayList<>();
+    private final ArrayList<Integer> methodEnds = new ArrayList<>();
+
+    //the first method whose body was found illegal, so the bodies after it aren't checked
+    private final AtomicInteger failedMethod = new AtomicInteger(Integer.MAX_VALUE);
+
+    //the if and while blocks open in the current body, which is all that's left of their statements until their
+    //'}' is compiled
+    private int openBlocks;
 
     /**
      * Constructor
@@ -26,211 +41,416 @@ public class CompilationEngine extends SJavaCompiler {
     public CompilationEngine(SJavaTokenizer tokenizer, SymbolTableManager manager) {
         super(tokenizer, manager);
 
-        currentToken = tokenizer.getCurrentToken();
+        readCurrentToken();
     }
 
     /**
-     * Runs the program main loop
+     * Runs the program main loop over the tokens recorded by the first pass
      * @throws ValidationException can throw validationException if met with syntax error
      * @throws IOException can throw IOException if file is corrupted
      */
     public void run() throws ValidationException, IOException {
-        tokenizer.advanceToStart();
-        currentToken = tokenizer.getCurrentToken();
-        while(tokenizer.getCurrentCommand() != null){
-            compileStatements();
+        run(new CompilationStats());
+    }
+
+    /**
+     * Runs the program main loop over the tokens recorded by the first pass, counting the work done on the
+     * method bodies. The work done with this engine's own symbol tables is left for the caller to count
+     * @param stats stats to add the method bodies' work to
+     * @throws ValidationException can throw validationException if met with syntax error
+     * @throws IOException can throw IOException if file is corrupted
+     */
+    public void run(CompilationStats stats) throws ValidationException, IOException {
+        CompilerPassEvent event = new CompilerPassEvent();
+        event.begin();
+        try {
+            checkProgram(stats);
+        } finally {
+            event.record(CompilerPassEvent.ENGINE_PASS, tokenizer.getTokenCount());
+        }
+    }
+
+    private void checkProgram(CompilationStats stats) throws ValidationException {
+        long allocated = CompilationStats.allocatedBytes();
+        tokenizer.rewind();
+        readCurrentToken();
+        Exception error = null;
+        try {
+            while (tokenizer.getCurrentCommand() != null || openBlocks > 0) {
+                compileStatements();
+            }
+        } catch (ValidationException e) {
+            //the methods before the error come first in the file
+            error = locate(e);
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        stats.addAllocatedBytes(allocated);
+        MethodChecker checker = new MethodChecker(0, methodStarts.size());
+        Exception methodError = checker.invoke();
+        stats.add(checker.stats);
+        if (methodError != null) {
+            error = methodError;
+        } else if (statements != null && error == null) {
+            statements.append(checker.statements);
+        }
+        if (error instanceof ValidationException) {
+            throw (ValidationException) error;
+        } else if (error != null) {
+            throw (RuntimeException) error;
+        }
+    }
+
+    /**
+     * Checks a range of method bodies, splitting it between threads if it's large enough
+     */
+    private class MethodChecker extends RecursiveTask<Exception> {
+        private final int first;
+        private final int last;
+        //the work done on the range, only read once the task is done
+        private final CompilationStats stats = new CompilationStats();
+        //the range's statements, if they're recorded
+        private final StatementBuffer statements = CompilationEngine.this.statements != null ?
+                new StatementBuffer() : null;
+
+        MethodChecker(int first, int last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        /**
+         * @return the first error in the range's method bodies, or null if they're all legal
+         */
+        @Override
+        protected Exception compute() {
+            if (last - first > 1 && methodEnds.get(last - 1) - methodStarts.get(first) > SPLIT_THRESHOLD) {
+                int middle = (first + last) >>> 1;
+                MethodChecker second = new MethodChecker(middle, last);
+                second.fork();
+                MethodChecker firstHalf = new MethodChecker(first, middle);
+                Exception error = firstHalf.compute();
+                stats.add(firstHalf.stats);
+                if (error != null) {
+                    //the second half stops before its next method, and is waited for so no thread still reads
+                    //the program once it's checked. Its work was cut short, so its stats are left out
+                    second.quietlyJoin();
+                    return error;
+                }
+                error = second.join();
+                stats.add(second.stats);
+                if (statements != null && error == null) {
+                    statements.append(firstHalf.statements);
+                    statements.append(second.statements);
+                }
+                return error;
+            }
+            long allocated = CompilationStats.allocatedBytes();
+            //bodies whose lines the first pass skipped are only tokenized now
+            SJavaTokenizer bodies = first < last ?
+                    tokenizer.tokenizeSkipped(methodStarts.get(first), methodEnds.get(last - 1)) : null;
+            if (bodies != null) {
+                stats.countTokens(bodies);
+            }
+            CompilationEngine engine = new CompilationEngine(bodies != null ? bodies : tokenizer.fork(),
+                    symbolTableManager.forkGlobalScope());
+            engine.recordStatements(statements);
+            try {
+                for (int i = first; i < last && i < failedMethod.get(); i++) {
+                    MethodValidationEvent event = new MethodValidationEvent();
+                    event.begin();
+                    int start = engine.tokenizer.getPositionOf(tokenizer, methodStarts.get(i));
+                    try {
+                        engine.tokenizer.seek(start);
+                        engine.readCurrentToken();
+                        engine.compileMethod();
+                    } catch (ValidationException e) {
+                        failedMethod.accumulateAndGet(i, Math::min);
+                        return engine.locate(e);
+                    } catch (RuntimeException e) {
+                        failedMethod.accumulateAndGet(i, Math::min);
+                        return e;
+                    } finally {
+                        event.end();
+                        if (event.shouldCommit()) {
+                            //the method's name follows its return type
+                            event.record(tokenizer.getToken(methodStarts.get(i) + 1),
+                                    engine.tokenizer.getPositionOf(tokenizer, methodEnds.get(i)) - start + 1);
+                        }
+                    }
+                }
+                return null;
+            } finally {
+                stats.countSymbolTables(engine.symbolTableManager);
+                stats.countClassifications(engine);
+                stats.addAllocatedBytes(allocated);
+            }
         }
     }
 
-    private void compileScopeOpener(String ifOrWhile) throws ValidationException {
+    private void skipMethod() {
+        methodStarts.add(tokenizer.getPosition());
+        tokenizer.skipScope();
+        methodEnds.add(tokenizer.getPosition());
+        advance();
+    }
+
+    /**
+     * Compiles the head of an if or a while and opens its block, whose statements are compiled next and whose
+     * '}' is compiled by compileBlockEnd
+     * @param ifOrWhile the kind of the block's first token
+     * @throws ValidationException if the head is illegal
+     */
+    private void compileScopeOpener(TokenKind ifOrWhile) throws ValidationException {
         symbolTableManager.openScope();
+        record(ifOrWhile == TokenKind.IF ? StatementKind.IF : StatementKind.WHILE, IdentifierTable.NO_IDENTIFIER,
+                null, false);
 
         process(ifOrWhile);
 
         //process boolean statement
-        process(FIRST_PARENTHESES);
+        process(TokenKind.OPEN_PARENTHESIS);
         compileBoolean();
-        process(SECOND_PARENTHESES);
+        process(TokenKind.CLOSE_PARENTHESIS);
 
         //process body
-        process(SCOPE_FIRST_PARENTHESES);
-        while (!currentToken.equals(SCOPE_SECOND_PARENTHESES)) {
-            compileStatements();
-        }
-        process(SCOPE_SECOND_PARENTHESES);
+        process(TokenKind.OPEN_SCOPE);
+        openBlocks++;
+    }
 
-        symbolTableManager.closeScope();
+    /**
+     * Compiles the '}' that closes the innermost open block, and closes its scope
+     * @throws ValidationException if the program is over before the block is closed
+     */
+    private void compileBlockEnd() throws ValidationException {
+        process(TokenKind.CLOSE_SCOPE);
+        openBlocks--;
+        closeScope();
     }
 
     private void compileMethod() throws ValidationException {
+        compileMethodHead();
+        compileBody();
+        process(TokenKind.CLOSE_SCOPE);
+        closeScope();
+    }
+
+    /**
+     * Compiles a method's declaration, up to the first token of its body, and opens its scope
+     * @throws ValidationException if a parameter can't be declared
+     */
+    void compileMethodHead() throws ValidationException {
         symbolTableManager.openScope();
-        process(ALLOWED_RETURN_VALUE);
+        process(RETURN_VALUE_KINDS);
+        record(StatementKind.METHOD, currentSymbol, null, false);
         advance();
-        process(FIRST_PARENTHESES);
+        process(TokenKind.OPEN_PARENTHESIS);
         boolean isFinal = false, firstCheck = true;
-        while (!Objects.equals(this.currentToken, SECOND_PARENTHESES)) {
-            if (!firstCheck) process(SEPARATOR);
+        while (currentKind != TokenKind.CLOSE_PARENTHESIS) {
+            if (!firstCheck) process(TokenKind.SEPARATOR);
             firstCheck = false;
-            if (currentToken.equals(FINAL)) {
+            if (currentKind == TokenKind.FINAL) {
                 isFinal = true;
-                process(FINAL);
+                process(TokenKind.FINAL);
+            }
+            Type type = currentKind.getType();
+            process(TYPE_KINDS);
+            record(StatementKind.PARAMETER, currentSymbol, type, isFinal);
+            if (statements != null) {
+                statements.initialized();
             }
-            Type type = Validator.convertToTypeEnum(currentToken);
-            process(ALLOWED_TYPES);
             checkVarNameAndAdd(type, isFinal, true);
         }
-        processMethodBody();
+        process(TokenKind.CLOSE_PARENTHESIS);
+        process(TokenKind.OPEN_SCOPE);
     }
 
-    private void processMethodBody() throws ValidationException{
-        process(SECOND_PARENTHESES);
-        process(SCOPE_FIRST_PARENTHESES);
-        compileBody();
-        process(SCOPE_SECOND_PARENTHESES);
+    /**
+     * Closes the innermost scope of a method body
+     */
+    void closeScope() {
         symbolTableManager.closeScope();
+        if (statements != null) {
+            statements.closeScope();
+        }
     }
 
-    private int compileStatements() throws ValidationException {
+    int compileStatements() throws ValidationException {
+        //A block's statements end at its '}', which must come before the end of the file
+        if (openBlocks > 0 && (currentKind == TokenKind.CLOSE_SCOPE || tokenizer.getCurrentCommand() == null)) {
+            compileBlockEnd();
+            return 0;
+        }
+
         //Checks if the file is over
         if (tokenizer.getCurrentCommand() == null) return 1;
 
-        if (!(Validator.checkLegalLine(tokenizer.getCurrentCommand()) ||
+        if (!(isLegalLine(tokenizer.getCurrentCommand()) ||
                 tokenizer.getCurrentCommand() == null))
-            throw new UnexpectedStatementException(ILLEGAL_LINE_END_MSG);
-
-        //Case var declaration
-        if (isIn(ALLOWED_TYPES, currentToken) || currentToken.equals(FINAL)) {
-            //If the var declaration is in the main scope it was already assigned
-            // by the initializer,so skip.
-            if (symbolTableManager.getSize() == MAIN_SCOPE) advanceLine();
-            else compileVariableDeclaration();
+            throw new UnexpectedStatementException(ErrorKind.ILLEGAL_LINE_END);
+
+        switch (currentKind) {
+            //Case var declaration
+            case INT:
+            case DOUBLE:
+            case CHAR:
+            case BOOLEAN:
+            case STRING:
+            case FINAL:
+                //If the var declaration is in the main scope it was already assigned
+                // by the initializer,so skip.
+                if (symbolTableManager.getSize() == MAIN_SCOPE) advanceLine();
+                else compileVariableDeclaration();
+                return 0;
 
             //If or while
-        } else if (isIn(SCOPE_OPENERS, currentToken)) compileScopeOpener(currentToken);
+            case IF:
+            case WHILE:
+                compileScopeOpener(currentKind);
+                return 0;
 
             //Method
-        else if (isIn(ALLOWED_RETURN_VALUE, currentToken)) {
-            //If the var declaration is in the main scope it was already assigned by
-            //the initializer, so skip.
-            if (symbolTableManager.getSize() == MAIN_SCOPE) compileMethod();
-            else throw new UnexpectedStatementException(ILLEGAL_EXPRESSION_MSG);
+            case VOID:
+                //Methods are declared in the main scope, and their bodies are checked once it's over.
+                if (symbolTableManager.getSize() == MAIN_SCOPE) skipMethod();
+                else throw new UnexpectedStatementException(ErrorKind.ILLEGAL_EXPRESSION);
+                return 0;
 
             //Let or call statement
-        } else if ((Validator.checkVarName(currentToken) ||
-                Validator.checkMethodName(currentToken)) && !currentToken.equals(RETURN)) {
-            handleLetCall();
-
-        } else if (currentToken.equals(RETURN) && symbolTableManager.getSize() == MAIN_SCOPE + 1) {
-            process(RETURN);
-            process(END_OF_LINE);
-            if (currentToken.equals(SCOPE_SECOND_PARENTHESES)) return 2;
-
-        } else if (currentToken.equals(RETURN)) {
-            process(RETURN);
-            process(END_OF_LINE);
-
-        } else throw new UnexpectedStatementException(UNEXPECTED_CHARACTER_MSG);
-
-        return 0;
+            case IDENTIFIER:
+                if (!(isVarName(currentToken) || isMethodName(currentToken)))
+                    throw new UnexpectedStatementException(ErrorKind.UNEXPECTED_CHARACTER);
+                handleLetCall();
+                return 0;
+
+            case RETURN:
+                record(StatementKind.RETURN, IdentifierTable.NO_IDENTIFIER, null, false);
+                process(TokenKind.RETURN);
+                process(TokenKind.END_OF_LINE);
+                //A return at the end of a method closes its body
+                if (symbolTableManager.getSize() == MAIN_SCOPE + 1 && currentKind == TokenKind.CLOSE_SCOPE) return 2;
+                return 0;
+
+            default:
+                throw new UnexpectedStatementException(ErrorKind.UNEXPECTED_CHARACTER);
+        }
     }
 
     private void handleLetCall() throws ValidationException {
-        String varName = currentToken;
+        int symbol = currentSymbol;
         advance();
-        if (Objects.equals(currentToken, EQUAL_OP)) {
+        if (currentKind == TokenKind.ASSIGN) {
             if (symbolTableManager.getSize() == MAIN_SCOPE) advanceLine();
-            else compileLet(varName);
+            else compileLet(symbol);
         }
-        else compileCall(varName);
+        else compileCall(symbol);
     }
 
-    private void compileBody() throws ValidationException {
+    void compileBody() throws ValidationException {
+        openBlocks = 0;
         int flag = 0;
         while (flag == 0) {
             flag = compileStatements();
         }
     }
 
-    private void compileCall(String varName) throws ValidationException {
+    void compileCall(int methodSymbol) throws ValidationException {
         boolean firstCheck = true;
         int counter = 0;
 
         //Check if the call is to an existing method
-        if (symbolTableManager.getMethod(varName) == null) {
-            throw new ParameterException(METHOD_DOESNT_EXIST_MSG);
+        if (!symbolTableManager.hasMethod(methodSymbol)) {
+            throw new ParameterException(ErrorKind.METHOD_DOESNT_EXIST);
         }
 
         //Extracts the method signature
-        ArrayList<Type> signature = symbolTableManager.getMethod(varName).getSignature();
+        byte[] signature = symbolTableManager.getSignature(methodSymbol);
+        record(StatementKind.CALL, methodSymbol, null, false);
 
-        process(FIRST_PARENTHESES);
+        process(TokenKind.OPEN_PARENTHESIS);
 
         //Checks if the signature corresponds the call
-        while (!Objects.equals(currentToken, SECOND_PARENTHESES)) {
-            if (counter > signature.size() - 1) {
-                throw new ParameterException(SIGNATURE_DOESNT_MATCH_MSG);
+        while (currentKind != TokenKind.CLOSE_PARENTHESIS) {
+            if (counter > signature.length - 1) {
+                throw new ParameterException(ErrorKind.SIGNATURE_DOESNT_MATCH);
             }
             checkSignature(firstCheck, signature, counter);
             firstCheck = false;
             counter++;
         }
-        if (signature != null && counter < signature.size()) {
-            throw new ParameterException(SIGNATURE_DOESNT_MATCH_MSG);
+        if (signature != null && counter < signature.length) {
+            throw new ParameterException(ErrorKind.SIGNATURE_DOESNT_MATCH);
         }
-        process(SECOND_PARENTHESES);
-        process(END_OF_LINE);
+        process(TokenKind.CLOSE_PARENTHESIS);
+        process(TokenKind.END_OF_LINE);
     }
 
-    private void checkSignature(boolean firstCheck, ArrayList<?> signature, int counter)
+    void checkSignature(boolean firstCheck, byte[] signature, int counter)
             throws ValidationException {
-        if (!firstCheck) process(SEPARATOR);
+        if (!firstCheck) process(TokenKind.SEPARATOR);
+
+        Type expected = Data.getSignatureType(signature, counter);
+        recordOperand();
+        checkArgument(expected, symbolTableManager.getParameter(currentSymbol), currentToken);
+        advance();
+    }
 
+    /**
+     * Checks that an argument of a call matches the type of its parameter
+     * @param expected the parameter's type
+     * @param paramData packed values of the argument if it's a variable, Data.NOT_FOUND otherwise
+     * @param token the argument
+     * @throws ValidationException if the argument doesn't match
+     */
+    void checkArgument(Type expected, int paramData, String token) throws ValidationException {
         //two options- param we know or new value
-        if (symbolTableManager.getParameter(currentToken) != null) {
-            Data paramData = symbolTableManager.getParameter(currentToken);
-            if (!allowType(paramData.getType(), (Type) signature.get(counter))) {
-                throw new ParameterException(SIGNATURE_DOESNT_MATCH_MSG);
+        if (paramData != Data.NOT_FOUND) {
+            if (!allowType(Data.getType(paramData), expected)) {
+                throw new ParameterException(ErrorKind.SIGNATURE_DOESNT_MATCH);
             }
-            else if (!paramData.getInitialized()) {
-                throw new ParameterException(UNINITIALIZED_PARAMETER_MSG);
+            else if (!Data.getInitialized(paramData)) {
+                throw new ParameterException(ErrorKind.UNINITIALIZED_PARAMETER);
             }
         } else {
-            if (!Validator.checkType((Type) signature.get(counter), currentToken)) {
-                throw new ParameterException(SIGNATURE_DOESNT_MATCH_MSG);
+            if (!isOfType(expected, token)) {
+                throw new ParameterException(ErrorKind.SIGNATURE_DOESNT_MATCH);
             }
         }
-        advance();
     }
 
     private void compileBoolean() throws ValidationException {
         compileBooleanTerm();
-        while (currentToken.equals(OR_OP) || currentToken.equals(AND_OP)) {
+        while (currentKind == TokenKind.OR || currentKind == TokenKind.AND) {
             advance();
             compileBooleanTerm();
         }
     }
 
-    private void compileBooleanTerm() throws ValidationException {
-        Data data;
+    void compileBooleanTerm() throws ValidationException {
+        recordOperand();
+        checkBooleanTerm(symbolTableManager.getParameter(currentSymbol), currentToken);
+        advance();
+    }
+
+    /**
+     * Checks that a term of a condition is a boolean
+     * @param data packed values of the term if it's a variable, Data.NOT_FOUND otherwise
+     * @param token the term
+     * @throws ValidationException if the term isn't a boolean
+     */
+    void checkBooleanTerm(int data, String token) throws ValidationException {
         //option 1- known parameter, checks if bool.
-        if ((data = symbolTableManager.getParameter(currentToken)) != null &&
-                symbolTableManager.getParameter(currentToken).getInitialized()) {
-            if (isIn(ALLOWED_BOOLEAN_TYPES, data.getType())) advance();
-            else throw new UnexpectedStatementException(NOT_BOOLEAN_TERM_MSG);
+        if (data != Data.NOT_FOUND && Data.getInitialized(data)) {
+            if (!isIn(ALLOWED_BOOLEAN_TYPES, Data.getType(data)))
+                throw new UnexpectedStatementException(ErrorKind.NOT_BOOLEAN_TERM);
         }
 
-        else if (data != null &&
-                !symbolTableManager.getParameter(currentToken).getInitialized()) {
-            throw new ParameterException(UNINITIALIZED_PARAMETER_MSG);
+        else if (data != Data.NOT_FOUND) {
+            throw new ParameterException(ErrorKind.UNINITIALIZED_PARAMETER);
         }
 
-        //option 2- new value.
-        else if (Validator.checkType(Type.BOOLEAN, currentToken)) {
-            advance();
-
-            //else, exception.
-        } else {
-            throw new UnexpectedStatementException(NOT_BOOLEAN_TERM_MSG);
+        //option 2- new value, else exception.
+        else if (!isOfType(Type.BOOLEAN, token)) {
+            throw new UnexpectedStatementException(ErrorKind.NOT_BOOLEAN_TERM);
         }
     }
 }
@@ -0,0 +1,175 @@
+package oop.ex6.compiler;
+
+import oop.ex6.symbol_table.SymbolTableManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+
+/**
+ * Counters of the work done to compile a file, or a batch of files, reported by --stats.
+ * A CompilationStats object is only ever changed by a single thread. The method bodies checked in parallel fill
+ * their own objects, which are added together once they're done
+ */
+public class CompilationStats {
+    /**
+     * Enum for the phases a file's compilation goes through
+     */
+    public enum Phase {
+        READ, TOKENIZE, INITIALIZE, VALIDATE;
+
+        private final String name = name().toLowerCase();
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final long[] nanos = new long[Phase.values().length];
+    private int files;
+    private int cachedFiles;
+    private long bytes;
+    private long lines;
+    private long tokens;
+    private long lookups;
+    private long scopesOpened;
+    private int maxDepth;
+    private long classifications;
+    private long allocatedBytes;
+
+    /**
+     * Counts the bytes and lines of a compiled file
+     * @param source the file's bytes, from its position to its limit
+     */
+    public void countSource(ByteBuffer source) {
+        files++;
+        bytes += source.remaining();
+        boolean lineStarted = false;
+        for (int i = source.position(); i < source.limit(); i++) {
+            lineStarted = source.get(i) != '\n';
+            if (!lineStarted) {
+                lines++;
+            }
+        }
+        if (lineStarted) {
+            lines++;
+        }
+    }
+
+    /**
+     * Marks the file as answered from a cache, without being compiled
+     */
+    public void countCached() {
+        cachedFiles++;
+    }
+
+    /**
+     * Adds the time a phase took since it started
+     * @param phase the phase
+     * @param start the System.nanoTime() of the phase's start
+     */
+    public void addTime(Phase phase, long start) {
+        nanos[phase.ordinal()] += System.nanoTime() - start;
+    }
+
+    /**
+     * Adds the bytes the current thread allocated since a point
+     * @param start the allocatedBytes() of that point
+     */
+    public void addAllocatedBytes(long start) {
+        allocatedBytes += allocatedBytes() - start;
+    }
+
+    /**
+     * Adds the tokens of a tokenizer
+     * @param tokenizer a tokenizer that tokenized the whole file, or the lines of a part of it that were skipped
+     */
+    public void countTokens(SJavaTokenizer tokenizer) {
+        tokens += tokenizer.getTokenCount();
+    }
+
+    /**
+     * Adds the work a symbol table manager did
+     * @param manager the manager
+     */
+    public void countSymbolTables(SymbolTableManager manager) {
+        lookups += manager.getLookups();
+        scopesOpened += manager.getScopesOpened();
+        maxDepth = Math.max(maxDepth, manager.getMaxDepth());
+    }
+
+    /**
+     * Adds the classifier checks a compiler made
+     * @param compiler the compiler
+     */
+    public void countClassifications(SJavaCompiler compiler) {
+        classifications += compiler.getClassifications();
+    }
+
+    /**
+     * Adds all the counters of other stats to these ones
+     * @param other stats of another part of the file, or of another file
+     */
+    public void add(CompilationStats other) {
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] += other.nanos[i];
+        }
+        files += other.files;
+        cachedFiles += other.cachedFiles;
+        bytes += other.bytes;
+        lines += other.lines;
+        tokens += other.tokens;
+        lookups += other.lookups;
+        scopesOpened += other.scopesOpened;
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        classifications += other.classifications;
+        allocatedBytes += other.allocatedBytes;
+    }
+
+    /**
+     * Measures how many bytes the current thread allocated so far
+     * @return the thread's allocated bytes, or 0 if the JVM can't measure them
+     */
+    public static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * @return the stats as human readable lines, indented under a file's name
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("  %d bytes, %d lines, %d tokens%s%n", bytes, lines, tokens,
+                cachedFiles == 0 ? "" : files == 1 ? ", cached" : ", " + cachedFiles + " cached"));
+        text.append(" ");
+        long total = 0;
+        for (Phase phase : Phase.values()) {
+            text.append(String.format(" %s %.3f ms,", phase.name, nanos[phase.ordinal()] / NANOS_PER_MILLI));
+            total += nanos[phase.ordinal()];
+        }
+        text.append(String.format(" total %.3f ms%n", total / NANOS_PER_MILLI));
+        text.append(String.format("  %d symbol lookups, %d scopes opened, max depth %d, %d classifier calls, " +
+                "%d bytes allocated%n", lookups, scopesOpened, maxDepth, classifications, allocatedBytes));
+        return text.toString();
+    }
+
+    /**
+     * @return the stats as the members of a JSON object, without its braces
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("\"files\": ").append(files).append(", \"cached\": ").append(cachedFiles);
+        json.append(", \"bytes\": ").append(bytes).append(", \"lines\": ").append(lines);
+        json.append(", \"tokens\": ").append(tokens).append(", \"nanos\": {");
+        for (Phase phase : Phase.values()) {
+            json.append(phase.ordinal() == 0 ? "" : ", ");
+            json.append('"').append(phase.name).append("\": ").append(nanos[phase.ordinal()]);
+        }
+        json.append("}, \"symbol_lookups\": ").append(lookups).append(", \"scopes_opened\": ").append(scopesOpened);
+        json.append(", \"max_depth\": ").append(maxDepth).append(", \"classifier_calls\": ").append(classifications);
+        json.append(", \"allocated_bytes\": ").append(allocatedBytes);
+        return json.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package oop.ex6.compiler;
+
+/**
+ * Enum for the kinds of errors a program may have, each with the message it's reported with.
+ * A message that depends on the program has a '%s' for every argument of its exception, and is only formatted
+ * once it's printed
+ */
+public enum ErrorKind {
+    //Declarations
+    ILLEGAL_DECLARATION("Illegal declaration"),
+    ILLEGAL_METHOD_DECLARATION("Illegal method declaration"),
+    METHOD_ALREADY_DEFINED("Already defined method with this name."),
+    ILLEGAL_VARIABLE_NAME("Illegal variable name"),
+    ALREADY_ASSIGNED("Tried to assign a taken variable name"),
+
+    //Statements
+    UNEXPECTED_TOKEN("Expected '%s', got '%s' instead"),
+    UNEXPECTED_TOKEN_KIND("Expected one of: %s. Got %s instead"),
+    UNEXPECTED_CHARACTER("Unexpected Character"),
+    ILLEGAL_EXPRESSION("Illegal start of expression"),
+    ILLEGAL_LINE_END("Line has to end with one of [{,},;]"),
+    NOT_BOOLEAN_TERM("Not a boolean term"),
+
+    //Variables
+    UNDECLARED_PARAMETER("Tried to access undeclared parameter"),
+    UNINITIALIZED_PARAMETER("Tried to use uninitialized parameter"),
+    WRONG_TYPE("Assigned value not matching the variable's type"),
+    TRIED_TO_CHANGE_FINAL("Tried to change a final variable"),
+
+    //Methods
+    METHOD_DOESNT_EXIST("Called to method that doesn't exist"),
+    SIGNATURE_DOESNT_MATCH("Method signature doesn't match the given parameters");
+
+    private static final String ARGUMENT = "%s";
+    private static final String KIND_SEPARATOR = ", ";
+
+    private final String text;
+
+    ErrorKind(String text) {
+        this.text = text;
+    }
+
+    /**
+     * getter for the error's message, with a '%s' in place of every argument
+     * @return the message's text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Formats the error's message. An array of token kinds is listed by their texts
+     * @param arguments values of the message's arguments, in order
+     * @return the message
+     */
+    public String format(Object[] arguments) {
+        if (arguments.length == 0) {
+            return text;
+        }
+        StringBuilder message = new StringBuilder();
+        int from = 0;
+        for (Object argument : arguments) {
+            int at = text.indexOf(ARGUMENT, from);
+            message.append(text, from, at);
+            if (argument instanceof TokenKind[]) {
+                for (TokenKind kind : (TokenKind[]) argument) {
+                    message.append(kind.getText()).append(KIND_SEPARATOR);
+                }
+            } else {
+                message.append(argument);
+            }
+            from = at + ARGUMENT.length();
+        }
+        return message.append(text, from, text.length()).toString();
+    }
+}
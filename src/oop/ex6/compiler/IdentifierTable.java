@@ -0,0 +1,226 @@
+package oop.ex6.compiler;
+
+import java.util.Arrays;
+
+/**
+ * Interns the identifiers of a program into dense int ids, numbered from 0 in the order they first appear.
+ * An identifier is kept as the offsets of its first occurrence in the program's text, so interning a token
+ * creates no string at all. A table whose text may be dropped keeps a copy of every distinct identifier's
+ * characters instead. The ids are kept in an open addressing hash table.
+ * A table may also be interned on top of another table of the same text, which it only reads: identifiers the
+ * other table knows keep their ids, and new ones are numbered after them
+ */
+public class IdentifierTable {
+    public static final int NO_IDENTIFIER = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int EMPTY = 0;
+
+    private CharSequence text;
+    //the copied identifiers, or null if they point into the program's text
+    private final StringBuilder names;
+    //the table this one was interned on top of, or null
+    private final IdentifierTable shared;
+    //the id of this table's first identifier
+    private final int base;
+    //ids + 1 by hash, 0 marks an empty slot
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Constructor
+     * @param text the text the interned identifiers point into
+     */
+    public IdentifierTable(CharSequence text) {
+        this.text = text;
+        this.names = null;
+        this.shared = null;
+        this.base = 0;
+    }
+
+    /**
+     * Constructor for a table that copies the identifiers it interns, so the text they come from may change
+     */
+    public IdentifierTable() {
+        this.names = new StringBuilder();
+        this.text = names;
+        this.shared = null;
+        this.base = 0;
+    }
+
+    /**
+     * Constructor for a table on top of another one, which mustn't change while this table is used. Several
+     * tables may share the same table at once, and may give the same id to different new identifiers
+     * @param shared a table that points into the text this table interns from
+     */
+    public IdentifierTable(IdentifierTable shared) {
+        this.text = shared.text;
+        this.names = null;
+        this.shared = shared;
+        this.base = shared.size();
+    }
+
+    /**
+     * Forgets every identifier, so the table may intern the identifiers of another text with the memory it
+     * already has. Only a table that points into its text and isn't on top of another table can be reset
+     * @param text the text the identifiers interned next point into
+     */
+    public void reset(CharSequence text) {
+        this.text = text;
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Interns an identifier of the text
+     * @param start offset of the identifier's first character
+     * @param end offset after the identifier's last character
+     * @return the identifier's id
+     */
+    public int intern(int start, int end) {
+        return intern(text, start, end);
+    }
+
+    /**
+     * Interns an identifier of some text. Unless the table copies its identifiers, the text must be the one it
+     * was created with
+     * @param source the text the identifier is in
+     * @param start offset of the identifier's first character
+     * @param end offset after the identifier's last character
+     * @return the identifier's id
+     */
+    public int intern(CharSequence source, int start, int end) {
+        int hash = hash(source, start, end);
+        if (shared != null) {
+            int slot = shared.find(hash, source, start, end);
+            if (shared.slots[slot] != EMPTY) {
+                return shared.slots[slot] - 1;
+            }
+        }
+        int slot = find(hash, source, start, end);
+        if (slots[slot] != EMPTY) {
+            return base + slots[slot] - 1;
+        }
+        if (size == starts.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        int id = size++;
+        hashes[id] = hash;
+        if (names != null) {
+            starts[id] = names.length();
+            names.append(source, start, end);
+            ends[id] = names.length();
+        } else {
+            starts[id] = start;
+            ends[id] = end;
+        }
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return base + id;
+    }
+
+    /**
+     * Looks an identifier up without interning it
+     * @param source the text the identifier is in, which may be any text
+     * @param start offset of the identifier's first character
+     * @param end offset after the identifier's last character
+     * @return the identifier's id, or NO_IDENTIFIER if it wasn't interned
+     */
+    public int find(CharSequence source, int start, int end) {
+        int hash = hash(source, start, end);
+        if (shared != null) {
+            int slot = shared.find(hash, source, start, end);
+            if (shared.slots[slot] != EMPTY) {
+                return shared.slots[slot] - 1;
+            }
+        }
+        int slot = find(hash, source, start, end);
+        return slots[slot] == EMPTY ? NO_IDENTIFIER : base + slots[slot] - 1;
+    }
+
+    /**
+     * Interns an identifier of another table, copying it if this table copies its identifiers
+     * @param table the other table, which points into this table's text unless this table copies its identifiers
+     * @param id the identifier's id in the other table
+     * @return the identifier's id in this table
+     */
+    public int intern(IdentifierTable table, int id) {
+        if (id < table.base) {
+            return intern(table.shared, id);
+        }
+        return intern(table.text, table.starts[id - table.base], table.ends[id - table.base]);
+    }
+
+    /**
+     * getter for the number of identifiers
+     * @return the number of distinct identifiers interned so far, including the shared table's
+     */
+    public int size() {
+        return base + size;
+    }
+
+    /**
+     * Creates the string of an identifier
+     * @param id the identifier's id
+     * @return the identifier's text
+     */
+    public String getName(int id) {
+        if (id < base) {
+            return shared.getName(id);
+        }
+        return text.subSequence(starts[id - base], ends[id - base]).toString();
+    }
+
+    //the slot of an identifier, or the empty slot it would be interned in
+    private int find(int hash, CharSequence source, int start, int end) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != EMPTY) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && regionEquals(starts[id], ends[id], source, start, end)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int hash(CharSequence source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        //spread the bits, since the table only uses the low ones
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean regionEquals(int start, int end, CharSequence other, int otherStart, int otherEnd) {
+        if (end - start != otherEnd - otherStart) {
+            return false;
+        }
+        for (int i = 0; i < end - start; i++) {
+            if (text.charAt(start + i) != other.charAt(otherStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,7 +1,7 @@
 package oop.ex6.compiler;
 
 public class IllegalIdentifierException extends ValidationException{
-    public IllegalIdentifierException(String message) {
-        super(message);
+    public IllegalIdentifierException(ErrorKind kind) {
+        super(kind);
     }
 }
@@ -1,20 +1,22 @@
 package oop.ex6.compiler;
 
-import oop.ex6.validation.Validator;
+import oop.ex6.events.CompilerPassEvent;
 import oop.ex6.symbol_table.*;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A compiler for the initialization of the program
  */
 public class Initializer extends SJavaCompiler {
 
-    public static final String ILLEGAL_METHOD_DECLARATION_MSG = "Illegal method declaration";
-    public static final String ILLEGAL_DECLARATION_MSG = "Illegal declaration";
-    public static final String METHOD_ALREADY_DEFINED_MSG = "Already defined method with this name.";
     public static final String VOID = "void";
 
+    //The declared methods and globals in the order of the file, or null if they aren't collected
+    private ArrayList<Integer> methods;
+    private ArrayList<Integer> globals;
+
     /**
      * Constructor
      * @param tokenizer A tokenizer object to tokenize the program
@@ -22,7 +24,7 @@ public class Initializer extends SJavaCompiler {
      */
     public Initializer (SJavaTokenizer tokenizer, SymbolTableManager manager) {
         super(tokenizer, manager);
-        currentToken = tokenizer.getCurrentToken();
+        readCurrentToken();
     }
 
     /**
@@ -30,25 +32,71 @@ public class Initializer extends SJavaCompiler {
      * @throws ValidationException can throw validationException if met with syntax error
      */
     public void extractMethodsAndGlobalVariables() throws ValidationException {
+        CompilerPassEvent event = new CompilerPassEvent();
+        event.begin();
+        try {
+            extract();
+        } catch (ValidationException e) {
+            throw locate(e);
+        } finally {
+            event.record(CompilerPassEvent.INITIALIZER_PASS, tokenizer.getTokenCount());
+        }
+    }
+
+    /**
+     * Collects the identifier ids of the declared methods and globals from now on, so they can be summarized once
+     * the initialization is done
+     */
+    public void collectDeclarations() {
+        methods = new ArrayList<>();
+        globals = new ArrayList<>();
+    }
+
+    /**
+     * getter for the declared methods
+     * @return identifier ids of the methods, in the order of the file, or null if they weren't collected
+     */
+    public List<Integer> getMethods() {
+        return methods;
+    }
+
+    /**
+     * getter for the declared globals
+     * @return identifier ids of the global variables, in the order of the file, or null if they weren't
+     * collected
+     */
+    public List<Integer> getGlobals() {
+        return globals;
+    }
+
+    private void extract() throws ValidationException {
         symbolTableManager.openScope();
-        String currentCommand;
-        while ((currentCommand = tokenizer.getCurrentCommand()) != null) {
-            //method declaration
-            if (currentCommand.startsWith(VOID)) {
-                processMethodDeclaration();
-            }
-            //var declaration
-            else if(currentCommand.startsWith(FINAL)|| startsWithType()){
-                compileVariableDeclaration();
-            }
-            else if(Validator.checkVarName(currentToken)){
-                String varName = currentToken;
-                advance();
-                compileLet(varName);
-            }
-            else{
-                throw new UnexpectedStatementException(ILLEGAL_DECLARATION_MSG);
-            }
+        while (tokenizer.getCurrentCommand() != null) {
+            compileGlobalStatement();
+        }
+    }
+
+    /**
+     * Compiles a single statement of the main scope
+     * @throws ValidationException if the statement is illegal
+     */
+    void compileGlobalStatement() throws ValidationException {
+        String currentCommand = tokenizer.getCurrentCommand();
+        //method declaration
+        if (currentCommand.startsWith(VOID)) {
+            processMethodDeclaration();
+        }
+        //var declaration
+        else if(currentCommand.startsWith(FINAL)|| startsWithType()){
+            compileVariableDeclaration();
+        }
+        else if(isVarName(currentToken)){
+            int varSymbol = currentSymbol;
+            advance();
+            compileLet(varSymbol);
+        }
+        else{
+            throw new UnexpectedStatementException(ErrorKind.ILLEGAL_DECLARATION);
         }
     }
 
@@ -62,37 +110,75 @@ public class Initializer extends SJavaCompiler {
     }
 
     private void processMethodDeclaration() throws ValidationException {
-        process(ALLOWED_RETURN_VALUE);
-        String methodName = currentToken;
+        process(RETURN_VALUE_KINDS);
+        int methodSymbol = currentSymbol;
 
         //check if method name is legal
-        if(!Validator.checkMethodName(currentToken)){
-            throw new IllegalIdentifierException(ILLEGAL_METHOD_DECLARATION_MSG);
+        if(!isMethodName(currentToken)){
+            throw new IllegalIdentifierException(ErrorKind.ILLEGAL_METHOD_DECLARATION);
         }
-        int openedScopes = 0, closedScopes = 0;
 
         //check if this method name wasn't used
-        if(!symbolTableManager.addMethod(methodName, Type.METHOD, false)){
-            throw new IllegalIdentifierException(METHOD_ALREADY_DEFINED_MSG);
+        if(!symbolTableManager.addMethod(methodSymbol)){
+            throw new IllegalIdentifierException(ErrorKind.METHOD_ALREADY_DEFINED);
+        }
+        if (methods != null) {
+            methods.add(methodSymbol);
         }
         advance();
-        process(FIRST_PARENTHESES);
+        process(TokenKind.OPEN_PARENTHESIS);
 
         //add signature to table
         ArrayList<Type> varTypes = compileParameterList();
         if (varTypes.size() > 0) {
-            symbolTableManager.getMethod(methodName).setSignature(varTypes);
+            symbolTableManager.setSignature(methodSymbol, Data.signatureOf(varTypes.toArray(new Type[0])));
+        }
+        process(TokenKind.CLOSE_PARENTHESIS);
+        process(TokenKind.OPEN_SCOPE);
+        compileMethodBody(methodSymbol);
+    }
+
+    @Override
+    void checkVarNameAndAdd(Type type, boolean isFinal, boolean isInitialized) throws ValidationException {
+        int symbol = currentSymbol;
+        super.checkVarNameAndAdd(type, isFinal, isInitialized);
+        if (globals != null) {
+            globals.add(symbol);
+        }
+    }
+
+    /**
+     * Handles the body of a declared method, from its first token. The bodies are checked once all the
+     * methods and globals are known, so the initialization only skips them
+     * @param methodSymbol identifier id of the method
+     * @throws ValidationException if the body doesn't end
+     */
+    void compileMethodBody(int methodSymbol) throws ValidationException {
+        ScopeIndex scopes = tokenizer.getScopes();
+        if (scopes != null && currentKind != TokenKind.OPEN_SCOPE && currentKind != TokenKind.CLOSE_SCOPE) {
+            //the first token is a brace of its own only when it's counted differently, so the body ends where
+            //the method's '{' is closed
+            tokenizer.seek(scopes.getClose(scopes.find(tokenizer.getPosition() - 1)));
+            readCurrentToken();
+            process(TokenKind.CLOSE_SCOPE);
+            return;
         }
-        process(SECOND_PARENTHESES);
-        process(SCOPE_FIRST_PARENTHESES);
+        skipMethodBody(1, 0);
+    }
 
-        //Skip the method scope
-        openedScopes++;
+    /**
+     * Skips the rest of a method body, counting its scopes from its second token
+     * @param openedScopes number of scopes opened so far, including the method's own
+     * @param closedScopes number of scopes closed so far
+     * @throws ValidationException if the body doesn't end
+     */
+    void skipMethodBody(int openedScopes, int closedScopes) throws ValidationException {
         while (closedScopes != openedScopes && tokenizer.getCurrentCommand() != null) {
+            tokenizer.forget();
             advance();
-            if (currentToken.equals(SCOPE_SECOND_PARENTHESES)) closedScopes++;
-            else if (currentToken.equals(SCOPE_FIRST_PARENTHESES)) openedScopes++;
+            if (currentKind == TokenKind.CLOSE_SCOPE) closedScopes++;
+            else if (currentKind == TokenKind.OPEN_SCOPE) openedScopes++;
         }
-        process(SCOPE_SECOND_PARENTHESES);
+        process(TokenKind.CLOSE_SCOPE);
     }
 }
@@ -1,7 +1,7 @@
 package oop.ex6.compiler;
 
 public class ParameterException extends ValidationException{
-    public ParameterException(String message) {
-        super(message);
+    public ParameterException(ErrorKind kind) {
+        super(kind);
     }
 }
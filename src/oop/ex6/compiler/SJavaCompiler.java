@@ -1,51 +1,38 @@
 package oop.ex6.compiler;
 
 import oop.ex6.validation.Validator;
+import oop.ex6.symbol_table.Data;
 import oop.ex6.symbol_table.SymbolTableManager;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Objects;
 
 /**
  * An abstract class representing a compiler that runs through an entire program
  */
 public abstract class SJavaCompiler {
-    //Exceptions
-    static final String ILLEGAL_VARIABLE_NAME_MSG = "Illegal variable name";
-    static final String UNEXPECTED_CHARACTER_MSG = "Unexpected Character";
-    static final String UNDECLARED_PARAMETER_MSG = "Tried to access undeclared parameter";
-    static final String WRONG_TYPE_MSG = "Assigned value not matching the variable's type";
-    static final String UNINITIALIZED_PARAMETER_MSG = "Tried to use uninitialized parameter";
-    static final String TRIED_TO_CHANGE_FINAL_MSG = "Tried to change a final variable";
-
     //Syntax
     final static Type[] ALLOWED_BOOLEAN_TYPES = {Type.BOOLEAN, Type.INT, Type.DOUBLE};
     final static String[] ALLOWED_TYPES = {"int", "double", "char", "boolean", "String"};
-    final static String[] SCOPE_OPENERS = {"if", "while"};
-    final static String[] ALLOWED_RETURN_VALUE = {"void"};
-    final static String[] ALLOWED_PARAM_QUALIFIER = {"final"};
-    final static String END_OF_LINE = ";";
-    final static String SEPARATOR = ",";
-    final static String FIRST_PARENTHESES = "(";
-    final static String SECOND_PARENTHESES = ")";
-    final static String SCOPE_FIRST_PARENTHESES = "{";
-    final static String SCOPE_SECOND_PARENTHESES = "}";
-    final static String RETURN = "return";
+    final static TokenKind[] TYPE_KINDS = {TokenKind.INT, TokenKind.DOUBLE, TokenKind.CHAR, TokenKind.BOOLEAN,
+            TokenKind.STRING};
+    final static TokenKind[] RETURN_VALUE_KINDS = {TokenKind.VOID};
+    final static TokenKind[] PARAM_QUALIFIER_KINDS = {TokenKind.FINAL};
     final static String FINAL = "final";
-    final static String OR_OP = "||";
-    final static String AND_OP = "&&";
-    final static String EQUAL_OP = "=";
-    final static String ALREADY_ASSIGNED_MSG = "Tried to assign a taken variable name";
 
     //Define main scope
     public final static int MAIN_SCOPE = 1;
-    public static final String EXPECTED_ONE_OF_MSG = "Expected one of: ";
 
     //Inner tools
     SJavaTokenizer tokenizer;
     SymbolTableManager symbolTableManager;
     String currentToken;
+    TokenKind currentKind;
+    int currentSymbol;
+    //Number of classifier checks made, reported by --stats
+    int classifications;
+    //Where the checked statements are recorded, or null if they aren't
+    StatementBuffer statements;
 
     /**
      * Constructor
@@ -59,59 +46,68 @@ public abstract class SJavaCompiler {
 
     }
 
+    /**
+     * Records the statements this compiler checks from now on
+     * @param statements a buffer to record the statements in
+     */
+    public void recordStatements(StatementBuffer statements) {
+        this.statements = statements;
+    }
+
     void compileVariableDeclaration() throws ValidationException {
         boolean isFinal = false, firstCheck = true;
 
         //May include a single param qualifier
-        if (isIn(ALLOWED_PARAM_QUALIFIER, currentToken)) {
+        if (currentKind == TokenKind.FINAL) {
             isFinal = true;
-            process(ALLOWED_PARAM_QUALIFIER);
+            process(PARAM_QUALIFIER_KINDS);
         }
 
         //type
-        Type type = Validator.convertToTypeEnum(currentToken);
-        process(ALLOWED_TYPES);
+        Type type = currentKind.getType();
+        process(TYPE_KINDS);
 
-        while (!Objects.equals(this.currentToken, END_OF_LINE)) {
+        while (currentKind != TokenKind.END_OF_LINE) {
             if (!firstCheck) {
-                process(SEPARATOR);
+                process(TokenKind.SEPARATOR);
             }
             firstCheck = false;
-            String varName = currentToken;
+            int varSymbol = currentSymbol;
+            record(StatementKind.DECLARATION, varSymbol, type, isFinal);
             checkVarNameAndAdd(type, isFinal, false);
             if (isFinal) {
-                process(EQUAL_OP);
-                checkVarValueAndAdd(varName, currentToken);
-            } else if (currentToken.equals(EQUAL_OP)) {
+                process(TokenKind.ASSIGN);
+                checkVarValueAndAdd(varSymbol);
+            } else if (currentKind == TokenKind.ASSIGN) {
                 advance();
-                checkVarValueAndAdd(varName, currentToken);
+                checkVarValueAndAdd(varSymbol);
             }
         }
-        process(END_OF_LINE);
+        process(TokenKind.END_OF_LINE);
     }
 
     ArrayList<Type> compileParameterList() throws ValidationException {
         ArrayList<Type> signature = new ArrayList<>();
         boolean isFinal = false;
         boolean firstCheck = true;
-        while (!Objects.equals(this.currentToken, SECOND_PARENTHESES)) {
+        while (currentKind != TokenKind.CLOSE_PARENTHESIS) {
             if (!firstCheck) {
-                process(SEPARATOR);
+                process(TokenKind.SEPARATOR);
             } else {
                 firstCheck = false;
             }
 
             //allow a single param qualifier
-            if (isIn(ALLOWED_PARAM_QUALIFIER, currentToken)) {
+            if (currentKind == TokenKind.FINAL) {
                 isFinal = true;
-                process(ALLOWED_PARAM_QUALIFIER);
+                process(PARAM_QUALIFIER_KINDS);
             }
 
-            Type type = Validator.convertToTypeEnum(currentToken);
+            Type type = currentKind.getType();
             signature.add(type);
-            process(ALLOWED_TYPES);
-            if (!Validator.checkVarName(currentToken)) {
-                throw new IllegalIdentifierException(ILLEGAL_VARIABLE_NAME_MSG);
+            process(TYPE_KINDS);
+            if (!isVarName(currentToken)) {
+                throw new IllegalIdentifierException(ErrorKind.ILLEGAL_VARIABLE_NAME);
             } else {
                 advance();
             }
@@ -119,115 +115,226 @@ public abstract class SJavaCompiler {
         return signature;
     }
 
-    void process(String[] expected) throws ValidationException {
-        ArrayList<String> allowedInput = new ArrayList<>();
-        Collections.addAll(allowedInput, expected);
-        if (allowedInput.contains(this.currentToken)) {
-            advance();
-        } else {
-            String err = EXPECTED_ONE_OF_MSG;
-            for (var s : expected) {
-                err += (s + ", ");
+    void process(TokenKind[] expected) throws ValidationException {
+        for (TokenKind kind : expected) {
+            if (kind == currentKind) {
+                advance();
+                return;
             }
-            err += ". Got " + currentToken + " instead";
-            throw new UnexpectedStatementException(err);
         }
+        throw new UnexpectedStatementException(ErrorKind.UNEXPECTED_TOKEN_KIND, expected, currentToken);
     }
 
-    void process(String toCheck) throws ValidationException {
-        if (toCheck.equals(currentToken)) {
+    void process(TokenKind toCheck) throws ValidationException {
+        if (toCheck == currentKind) {
             advance();
         } else {
-            throw new UnexpectedStatementException("Expected '" + toCheck + "', got '" + currentToken + "' instead");
+            throw unexpected(toCheck, currentToken);
         }
     }
 
+    /**
+     * Creates the exception of a token that isn't the expected one
+     * @param expected kind of the expected token
+     * @param token the token that was found instead
+     * @return the exception to throw
+     */
+    static UnexpectedStatementException unexpected(TokenKind expected, String token) {
+        return new UnexpectedStatementException(ErrorKind.UNEXPECTED_TOKEN, expected.getText(), token);
+    }
+
     void advance() {
         tokenizer.advance();
-        if (tokenizer.getCurrentCommand() == null) {
-            currentToken = "";
-            return;
-        }
-        currentToken = this.tokenizer.getCurrentToken();
+        readCurrentToken();
     }
 
     void advanceLine() {
-        while (!currentToken.equals(END_OF_LINE)) {
+        while (currentKind != TokenKind.END_OF_LINE) {
             advance();
         }
         advance();
     }
 
+    /**
+     * Locates an error at the current token, unless it was already located
+     * @param error an error found by this compiler
+     * @return the error
+     */
+    ValidationException locate(ValidationException error) {
+        return error.locate(tokenizer.getLineNumber(), tokenizer.getColumn());
+    }
+
+    /**
+     * Records a statement that starts at the current token, if the statements are recorded
+     * @param kind the statement's kind
+     * @param symbol identifier id of the statement's variable or method, or IdentifierTable.NO_IDENTIFIER
+     * @param type the type of the statement's variable, or null
+     * @param isFinal whether the statement's variable is final
+     */
+    void record(StatementKind kind, int symbol, Type type, boolean isFinal) {
+        if (statements != null) {
+            statements.add(kind, statements.intern(tokenizer.getIdentifiers(), symbol), type, isFinal,
+                    tokenizer.getLineNumber());
+        }
+    }
+
+    /**
+     * Records the current token as an operand of the last recorded statement, if the statements are recorded
+     */
+    void recordOperand() {
+        if (statements != null) {
+            statements.addOperand(statements.intern(tokenizer.getIdentifiers(), currentSymbol), currentKind);
+        }
+    }
+
+    /**
+     * Records the current token as the value the last recorded statement gives its variable, if the statements
+     * are recorded
+     */
+    void recordValue() {
+        if (statements != null) {
+            statements.addOperand(statements.intern(tokenizer.getIdentifiers(), currentSymbol), currentKind);
+            statements.initialized();
+        }
+    }
+
+    /**
+     * Makes the compiler's current token the tokenizer's current token
+     */
+    void readCurrentToken() {
+        if (tokenizer.getCurrentCommand() == null) {
+            currentToken = "";
+            currentKind = TokenKind.END;
+            currentSymbol = IdentifierTable.NO_IDENTIFIER;
+            return;
+        }
+        currentToken = tokenizer.getCurrentToken();
+        currentKind = tokenizer.getCurrentKind();
+        currentSymbol = tokenizer.getCurrentSymbol();
+    }
+
+    /**
+     * getter for the number of checks this compiler made through the Validator
+     * @return number of classifier checks
+     */
+    public int getClassifications() {
+        return classifications;
+    }
+
+    boolean isVarName(String token) {
+        classifications++;
+        return Validator.checkVarName(token);
+    }
+
+    boolean isMethodName(String token) {
+        classifications++;
+        return Validator.checkMethodName(token);
+    }
+
+    boolean isOfType(Type type, String token) {
+        classifications++;
+        return Validator.checkType(type, token);
+    }
+
+    boolean isLegalLine(String command) {
+        classifications++;
+        return Validator.checkLegalLine(command);
+    }
+
     boolean isIn(Object[] list, Object token) {
-        ArrayList<Object> allowedInput = new ArrayList<>();
-        Collections.addAll(allowedInput, list);
-        return (allowedInput.contains(token));
+        for (Object allowed : list) {
+            if (Objects.equals(allowed, token)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     void checkVarNameAndAdd(Type type, boolean isFinal, boolean isInitialized) throws ValidationException {
-        if (!Validator.checkVarName(currentToken)) {
-            throw new IllegalIdentifierException(ILLEGAL_VARIABLE_NAME_MSG);
+        if (!isVarName(currentToken)) {
+            throw new IllegalIdentifierException(ErrorKind.ILLEGAL_VARIABLE_NAME);
         }
-        if (!symbolTableManager.addParameter(currentToken, type, isFinal)) {
-            throw new IllegalIdentifierException(ALREADY_ASSIGNED_MSG);
+        if (!symbolTableManager.addParameter(currentSymbol, type, isFinal)) {
+            throw new IllegalIdentifierException(ErrorKind.ALREADY_ASSIGNED);
         }
         if (isInitialized) {
-            symbolTableManager.getParameter(currentToken).initialized();
+            symbolTableManager.initialized(currentSymbol);
+        }
+        advance();
+    }
+
+    void checkVarValueAndAdd(int varSymbol) throws ValidationException {
+        recordValue();
+        int data = symbolTableManager.getParameter(varSymbol);
+        checkValue(Data.getType(data));
+        //globals are shared by the method bodies, so an initialized variable is left untouched
+        if (!Data.getInitialized(data)) {
+            symbolTableManager.initialized(varSymbol);
         }
         advance();
     }
 
-    void checkVarValueAndAdd(String varName, String value) throws ValidationException {
-        Type type;
-        boolean flag;
-        type = symbolTableManager.getParameter(varName).getType();
+    /**
+     * Checks that the current token is a value that may be assigned to a variable
+     * @param type the variable's type
+     * @throws ValidationException if the value can't be assigned
+     */
+    void checkValue(Type type) throws ValidationException {
         //if it's a known parameter
-        if (Validator.checkVarName(value)) {
-            if (symbolTableManager.getParameter(value) != null) {
-                if (symbolTableManager.getParameter(value).getInitialized()) {
-                    flag = (allowType(type, symbolTableManager.getParameter(value).getType()));
-                } else {
-                    throw new ParameterException(UNINITIALIZED_PARAMETER_MSG);
-                }
-            } else {
-                throw new ParameterException(UNDECLARED_PARAMETER_MSG);
-            }
-        } else {
-            flag = Validator.checkType(type, value);
+        if (isVarName(currentToken)) {
+            checkVariableValue(type, symbolTableManager.getParameter(currentSymbol));
+        } else if (!isOfType(type, currentToken)) {
+            throw new ParameterException(ErrorKind.WRONG_TYPE);
         }
-        if (flag) {
-            symbolTableManager.getParameter(varName).initialized();
-            advance();
-        } else {
-            throw new ParameterException(WRONG_TYPE_MSG);
+    }
+
+    /**
+     * Checks that a variable's value may be assigned to another variable
+     * @param type type of the assigned variable
+     * @param valueData packed values of the variable whose value is assigned, or Data.NOT_FOUND
+     * @throws ValidationException if the value can't be assigned
+     */
+    void checkVariableValue(Type type, int valueData) throws ValidationException {
+        if (valueData == Data.NOT_FOUND) {
+            throw new ParameterException(ErrorKind.UNDECLARED_PARAMETER);
+        } else if (!Data.getInitialized(valueData)) {
+            throw new ParameterException(ErrorKind.UNINITIALIZED_PARAMETER);
+        } else if (!allowType(type, Data.getType(valueData))) {
+            throw new ParameterException(ErrorKind.WRONG_TYPE);
         }
     }
 
-    void compileLet(String varName) throws ValidationException {
+    void compileLet(int varSymbol) throws ValidationException {
         boolean firstCheck = true;
 
-        while (!Objects.equals(currentToken, END_OF_LINE)) {
+        while (currentKind != TokenKind.END_OF_LINE) {
             if (!firstCheck) {
-                process(SEPARATOR);
-                varName = currentToken;
+                process(TokenKind.SEPARATOR);
+                varSymbol = currentSymbol;
                 advance();
             }
             firstCheck = false;
 
-            //Checks if the given var name is declared and final
-            if (symbolTableManager.getParameter(varName) == null) {
-                throw new ParameterException(UNDECLARED_PARAMETER_MSG);
-            } else if (symbolTableManager.getParameter(varName).isFinal()) {
-                throw new ParameterException(TRIED_TO_CHANGE_FINAL_MSG);
-            }
-            if (symbolTableManager.isGlobal(varName) && !symbolTableManager.getParameter(varName).getInitialized()) {
-                var data = symbolTableManager.getParameter(varName);
-                symbolTableManager.addParameter(varName, data.getType(), data.isFinal());
-            }
-            process(EQUAL_OP);
-            checkVarValueAndAdd(varName, currentToken);
+            int data = symbolTableManager.getParameter(varSymbol);
+            checkTarget(data);
+            record(StatementKind.ASSIGNMENT, varSymbol, Data.getType(data), false);
+            process(TokenKind.ASSIGN);
+            checkVarValueAndAdd(varSymbol);
+        }
+        process(TokenKind.END_OF_LINE);
+    }
+
+    /**
+     * Checks if the given var name is declared and final
+     * @param data packed values of the assigned variable, or Data.NOT_FOUND
+     * @throws ValidationException if the variable can't be assigned
+     */
+    void checkTarget(int data) throws ValidationException {
+        if (data == Data.NOT_FOUND) {
+            throw new ParameterException(ErrorKind.UNDECLARED_PARAMETER);
+        } else if (Data.isFinal(data)) {
+            throw new ParameterException(ErrorKind.TRIED_TO_CHANGE_FINAL);
         }
-        process(END_OF_LINE);
     }
 
     boolean allowType(Type type1, Type type2) {
@@ -0,0 +1,295 @@
+package oop.ex6.compiler;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A hand-written lexer that tokenizes ASCII source directly from its bytes, in place - the bytes may be a heap
+ * array or a memory mapped file.
+ * It splits lines and recognizes tokens exactly like SJavaTokenizer's line reading and ADVANCE_REGEX, and
+ * records every token in a TokenBuffer as a kind and offsets, so no string is created while tokenizing.
+ * The first pass only needs the headers of the methods and the main scope, so most lines of method bodies are only
+ * scanned for scopes, and are tokenized later on by a lexer of their own method
+ */
+public class SJavaLexer {
+    private static final byte SLASH = '/';
+    private static final byte SINGLE_QUOTE = '\'';
+    private static final byte DOUBLE_QUOTE = '"';
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final ByteBuffer source;
+    private final int length;
+    private final TokenBuffer buffer;
+    private final boolean skipBodies;
+    private int position;
+    private int lineNumber;
+
+    //The line nextLine read: its bounds in the source, and the part of it the compiler sees, which is empty if the
+    //line has no commands
+    private int lineStart;
+    private int lineEnd;
+    private int commandStart;
+    private int commandEnd;
+
+    //The method body the tokens are in, as the first pass sees it
+    private int depth;
+    private boolean firstBodyToken;
+    private boolean skippable;
+    private int skipLimit;
+
+    /**
+     * Constructor for a lexer that skips the lines of method bodies that the first pass doesn't need. Lines inside a
+     * method body that open and close as many scopes as each other are recorded as a single BODY token, and are
+     * only tokenized once their method is checked
+     * @param source ASCII encoded program
+     * @param buffer a buffer to record the tokens in, whose text is the given source
+     */
+    public SJavaLexer(ByteBuffer source, TokenBuffer buffer) {
+        this.source = source;
+        this.length = source.limit();
+        this.buffer = buffer;
+        this.skipBodies = true;
+    }
+
+    /**
+     * Constructor for a lexer that tokenizes every line of a part of the program
+     * @param source ASCII encoded program
+     * @param buffer a buffer to record the tokens in, whose text is the given source
+     * @param start offset of the first line of the part
+     * @param end offset after the last character of the part
+     * @param lineNumber the first line's number in the source file
+     */
+    public SJavaLexer(ByteBuffer source, TokenBuffer buffer, int start, int end, int lineNumber) {
+        this.source = source;
+        this.length = end;
+        this.buffer = buffer;
+        this.skipBodies = false;
+        this.position = start;
+        this.lineNumber = lineNumber - 1;
+    }
+
+    /**
+     * Tokenizes the next line that holds commands, skipping empty and comment lines
+     * @return true if a line was tokenized, false if the source is over
+     */
+    public boolean tokenizeLine() {
+        while (position < length) {
+            if (skipBodies && depth > 0 && !firstBodyToken && skippable && position >= skipLimit && skipBody()) {
+                return true;
+            }
+            nextLine();
+            if (commandStart == commandEnd) {
+                continue;
+            }
+            buffer.addLine(commandStart, commandEnd, lineNumber, commandStart - lineStart + 1);
+            tokenize(commandStart, commandEnd);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * getter for the lexer's position
+     * @return offset of the first character that wasn't read yet
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * getter for the number of the last line that was read
+     * @return the line's number in the source file
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    //Reads the next line of the source
+    private void nextLine() {
+        lineStart = position;
+        lineEnd = lineStart;
+        while (lineEnd < length && source.get(lineEnd) != NEW_LINE && source.get(lineEnd) != CARRIAGE_RETURN) {
+            lineEnd++;
+        }
+        position = lineEnd;
+        if (position < length && source.get(position) == CARRIAGE_RETURN) {
+            position++;
+        }
+        if (position < length && source.get(position) == NEW_LINE) {
+            position++;
+        }
+        lineNumber++;
+
+        //strip the line, unless it's a comment that doesn't start the line
+        commandStart = lineStart;
+        commandEnd = lineEnd;
+        while (commandStart < commandEnd && isStripped(source.get(commandStart))) {
+            commandStart++;
+        }
+        while (commandEnd > commandStart && isStripped(source.get(commandEnd - 1))) {
+            commandEnd--;
+        }
+        if (commandEnd - commandStart > 1 && source.get(commandStart) == SLASH &&
+                source.get(commandStart + 1) == SLASH) {
+            if (commandStart == lineStart) {
+                commandEnd = commandStart;
+            } else {
+                commandStart = lineStart;
+                commandEnd = lineEnd;
+            }
+        }
+    }
+
+    /*
+     * Records the next lines of the current method body as a single BODY token, up to the last one after which
+     * the body has as many scopes open as before them, without tokenizing them. A body that doesn't end is
+     * tokenized whole, so an error at its end is found at its last token.
+     * Returns false, and skips nothing, if there are no such lines
+     */
+    private boolean skipBody() {
+        int start = position, startLine = lineNumber;
+        int skippedEnd = start, skippedPosition = start, skippedLine = startLine;
+        int opened = 0;
+        boolean closed = false;
+        while (!closed && position < length) {
+            nextLine();
+            for (int i = commandStart; i < commandEnd && !closed; i++) {
+                byte c = source.get(i);
+                int quoteEnd;
+                if ((c == SINGLE_QUOTE || c == DOUBLE_QUOTE) && (quoteEnd = lastIndexOf(c, i + 1, commandEnd)) >= 0) {
+                    i = quoteEnd;
+                } else if (c == '{') {
+                    opened++;
+                } else if (c == '}') {
+                    closed = depth + --opened == 0;
+                }
+            }
+            if (!closed && opened == 0 && commandStart < commandEnd) {
+                skippedEnd = lineEnd;
+                skippedPosition = position;
+                skippedLine = lineNumber;
+            }
+        }
+        //the lines up to the closing one are only scanned once
+        skipLimit = closed ? lineStart : length;
+        if (!closed || skippedEnd == start) {
+            position = start;
+            lineNumber = startLine;
+            return false;
+        }
+        buffer.addLine(start, skippedEnd, startLine + 1, 1);
+        buffer.addToken(TokenBuffer.BODY, start, skippedEnd);
+        position = skippedPosition;
+        lineNumber = skippedLine;
+        return true;
+    }
+
+    private void tokenize(int start, int end) {
+        int i = start;
+        while (i < end) {
+            byte c = source.get(i);
+            int tokenEnd;
+            if (c == SINGLE_QUOTE || c == DOUBLE_QUOTE) {
+                tokenEnd = lastIndexOf(c, i + 1, end) + 1;
+                if (tokenEnd > 0) {
+                    addToken(TokenBuffer.QUOTED, i, tokenEnd);
+                    i = tokenEnd;
+                    continue;
+                }
+            }
+            if ((tokenEnd = scanNumber(i, end)) > 0) {
+                addToken(TokenBuffer.NUMBER, i, tokenEnd);
+                i = tokenEnd;
+            } else if (isWordCharacter(c)) {
+                tokenEnd = i + 1;
+                while (tokenEnd < end && isWordCharacter(source.get(tokenEnd))) {
+                    tokenEnd++;
+                }
+                addToken(TokenBuffer.WORD, i, tokenEnd);
+                i = tokenEnd;
+            } else if ((c == '|' || c == '&') && i + 1 < end && source.get(i + 1) == c) {
+                addToken(TokenBuffer.OPERATOR, i, i + 2);
+                i += 2;
+            } else if (isWhitespace(c)) {
+                i++;
+            } else {
+                addToken(TokenBuffer.SYMBOL, i, i + 1);
+                i++;
+            }
+        }
+    }
+
+    private void addToken(byte kind, int start, int end) {
+        buffer.addToken(kind, start, end);
+        if (skipBodies) {
+            countScopes(kind == TokenBuffer.SYMBOL ? source.get(start) : 0);
+        }
+    }
+
+    //Follows the method bodies like the first pass skips them: a body is opened by a '{' of the main scope, and
+    //its scopes are counted from its second token on
+    private void countScopes(byte symbol) {
+        if (depth == 0) {
+            if (symbol == '{') {
+                depth = 1;
+                firstBodyToken = true;
+            }
+        } else if (firstBodyToken) {
+            //a body whose first token is uncounted punctuation isn't skipped, since the passes count it differently
+            firstBodyToken = false;
+            skippable = symbol != '{' && symbol != '}';
+        } else if (symbol == '{') {
+            depth++;
+        } else if (symbol == '}') {
+            depth--;
+        }
+    }
+
+    //Same as [+-]?\d*\.*\d+, returns the end of the number or -1 if there isn't one
+    private int scanNumber(int start, int end) {
+        int digits = start;
+        if (digits < end && (source.get(digits) == '+' || source.get(digits) == '-')) {
+            digits++;
+        }
+        int dots = skipDigits(digits, end);
+        int fraction = dots;
+        while (fraction < end && source.get(fraction) == '.') {
+            fraction++;
+        }
+        int fractionEnd = skipDigits(fraction, end);
+        if (fraction > dots && fractionEnd > fraction) {
+            return fractionEnd;
+        }
+        return dots > digits ? dots : -1;
+    }
+
+    private int skipDigits(int start, int end) {
+        while (start < end && source.get(start) >= '0' && source.get(start) <= '9') {
+            start++;
+        }
+        return start;
+    }
+
+    private int lastIndexOf(byte c, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (source.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWordCharacter(byte c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    //Same as \s
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    //Same as Character.isWhitespace, which String.strip uses
+    private static boolean isStripped(byte c) {
+        return c == ' ' || (c >= '\t' && c <= '\r') || (c >= 0x1C && c <= 0x1F);
+    }
+}
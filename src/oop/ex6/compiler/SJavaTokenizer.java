@@ -2,92 +2,434 @@ package oop.ex6.compiler;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * A class for creating tokens out of a SJavac program and managing them
+ * A class for creating tokens out of a SJavac program and managing them.
+ * The program is read and tokenized once, the tokens are recorded in a TokenBuffer and later passes replay them.
+ * ASCII sources are tokenized straight from their bytes, on the heap or memory mapped, by a SJavaLexer, any other
+ * source is decoded and tokenized line by line with ADVANCE_REGEX.
+ * A program read from a stream is only read once, so its tokenizer forgets the tokens a single pass is done with.
+ * A large ASCII source that is tokenized at once is handed to a ChunkedLexer, which tokenizes it on several threads
  */
 public class SJavaTokenizer {
     public static final String PREFIX = "//";
     private static final String ADVANCE_REGEX = "\'.*\'|\".*\"|[+-]?\\d*\\.*\\d+|\\w+|[|]{2}|&{2}|\\S";
-    private BufferedReader reader;
+    //Tokens are only forgotten this many at a time, and never fewer than the tokens that are kept
+    private static final int FORGET_THRESHOLD = 1024;
+    private final BufferedReader reader;
+    private final SJavaLexer lexer;
+    //the bytes the lexer reads, or null if the program isn't tokenized by one
+    private final ByteBuffer source;
+    private final TokenBuffer buffer;
+    private final Pattern p;
+    private final boolean streaming;
+    //the scopes of the program, once they're indexed
+    private ScopeIndex scopes;
+    private boolean exhausted;
+    private int discarded;
+    private int lineNumber;
+    private int lineColumn;
+    private int position;
+    private int currentLineIndex;
+    private int currentTokenIndex;
     private String currentToken;
     private String currentLine;
-    private final Pattern p;
-    private Matcher m;
+    private String lastReadLine;
+
+    private SJavaTokenizer(BufferedReader reader, SJavaLexer lexer, ByteBuffer source, TokenBuffer buffer,
+                           boolean streaming, boolean exhausted) {
+        this.reader = reader;
+        this.lexer = lexer;
+        this.source = source;
+        this.buffer = buffer;
+        this.p = reader != null ? Pattern.compile(ADVANCE_REGEX) : null;
+        this.streaming = streaming;
+        //a tokenizer with nothing to read must know it before rewind reads its first token
+        this.exhausted = exhausted;
+        rewind();
+    }
 
     /**
-     * Constructor
+     * Creates a tokenizer of a program read line by line
      * @param reader a buffered stream
-     * @throws IOException throws IOException if file is missing or corrupt
+     * @return a new tokenizer of the program
      */
-    public SJavaTokenizer(BufferedReader reader) throws IOException {
-        this.reader = reader;
-        this.p = Pattern.compile(ADVANCE_REGEX);
-        advanceToStart();
+    public static SJavaTokenizer of(BufferedReader reader) {
+        return new SJavaTokenizer(reader, null, null, new TokenBuffer(), false, false);
+    }
+
+    /**
+     * Creates a tokenizer of a program that can only be read once, such as a pipe. The tokens are read as
+     * they're needed, and forget() drops the ones before the current token
+     * @param source a stream of the program's bytes
+     * @return a new tokenizer of the program
+     */
+    public static SJavaTokenizer streaming(InputStream source) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(source, Charset.defaultCharset()));
+        return new SJavaTokenizer(reader, null, null, new TokenBuffer(), true, false);
+    }
+
+    /**
+     * Creates a tokenizer of a program's bytes
+     * @param source the raw bytes of the program
+     * @return a new tokenizer of the program
+     */
+    public static SJavaTokenizer of(byte[] source) {
+        return of(ByteBuffer.wrap(source), null);
+    }
+
+    /**
+     * Creates a tokenizer of a program's bytes
+     * @param source the raw bytes of the program from index 0 to the buffer's limit, either on the heap or
+     *               memory mapped
+     * @return a new tokenizer of the program
+     */
+    public static SJavaTokenizer of(ByteBuffer source) {
+        return of(source, null);
+    }
+
+    /**
+     * Creates a tokenizer that records an ASCII program in a buffer it's given, which is reset first, so the
+     * buffer of an earlier program may be used again. Any other program is decoded, and recorded in a buffer of
+     * its own
+     * @param source the raw bytes of the program from index 0 to the buffer's limit, either on the heap or
+     *               memory mapped
+     * @param buffer a buffer that points into an existing text, or null to record the tokens in a new buffer
+     * @return a new tokenizer of the program
+     */
+    public static SJavaTokenizer of(ByteBuffer source, TokenBuffer buffer) {
+        if (!AsciiText.isAscii(source)) {
+            String decoded = Charset.defaultCharset().decode(source.duplicate()).toString();
+            return of(new BufferedReader(new StringReader(decoded)));
+        }
+        AsciiText text = new AsciiText(source);
+        if (buffer != null) {
+            buffer.reset(text);
+        } else {
+            buffer = new TokenBuffer(text);
+        }
+        return new SJavaTokenizer(null, new SJavaLexer(source, buffer), source, buffer, false, false);
+    }
+
+    /**
+     * Creates a tokenizer that replays the tokens recorded so far from a position of its own, so several
+     * threads may replay parts of the program at once. The new tokenizer never reads further, so it must only
+     * be used once this tokenizer has read past the tokens it replays
+     * @return a new tokenizer over the same tokens
+     */
+    public SJavaTokenizer fork() {
+        return new SJavaTokenizer(null, null, null, buffer, false, true);
+    }
+
+    /**
+     * Creates a tokenizer of a part of the program whose lines were skipped by the lexer, such as method bodies.
+     * The lines from the first token's to the last token's are tokenized into a buffer of the new tokenizer's
+     * own, whose words have the same ids as this tokenizer's, so several threads may tokenize parts of the
+     * program at once. Like a forked tokenizer, it must only be used once this tokenizer has read past the part
+     * @param first position of the part's first token
+     * @param last position of the part's last token, or past the last token of the program
+     * @return a new tokenizer over the part, whose positions are found with getPositionOf, or null if no lines of
+     * the part were skipped
+     */
+    public SJavaTokenizer tokenizeSkipped(int first, int last) {
+        int end = Math.min(last, getTokenCount() - 1);
+        int skipped = first;
+        while (skipped <= end && buffer.getKind(skipped) != TokenKind.BODY) {
+            skipped++;
+        }
+        if (skipped > end) {
+            return null;
+        }
+        int firstLine = buffer.getLine(first);
+        int start = buffer.getLineStart(firstLine) - buffer.getLineColumn(firstLine) + 1;
+        int limit = last == end ? buffer.getLineEnd(buffer.getLine(last)) : source.limit();
+        TokenBuffer part = new TokenBuffer(buffer.getText(), buffer.getIdentifiers());
+        SJavaLexer partLexer = new SJavaLexer(source, part, start, limit, buffer.getLineNumber(firstLine));
+        SJavaTokenizer tokenizer = new SJavaTokenizer(null, partLexer, null, part, false, false);
+        tokenizer.tokenizeAll();
+        return tokenizer;
+    }
+
+    /**
+     * Finds a token that another tokenizer of the same text has read, such as the tokenizer this one was created
+     * by with tokenizeSkipped
+     * @param tokenizer the other tokenizer
+     * @param position the token's index in the other tokenizer, as returned by its getPosition
+     * @return the token's index in this tokenizer, to seek to. Past the other tokenizer's last token, past this
+     * tokenizer's last token
+     */
+    public int getPositionOf(SJavaTokenizer tokenizer, int position) {
+        if (position - tokenizer.discarded >= tokenizer.buffer.size()) {
+            return getTokenCount();
+        }
+        int start = tokenizer.buffer.getStart(position - tokenizer.discarded);
+        int low = 0, high = buffer.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getStart(middle) < start) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return discarded + low;
+    }
+
+    /**
+     * Reads and records the rest of the program at once, instead of a line at a time as the tokens are needed.
+     * A large ASCII source is tokenized in parallel chunks, all of whose lines are tokenized, method bodies too.
+     * The current token doesn't change
+     */
+    public void tokenizeAll() {
+        if (source != null && !exhausted && ChunkedLexer.tokenizeRest(source, lexer, buffer)) {
+            exhausted = true;
+        }
+        while (!exhausted) {
+            tokenizeLine();
+        }
+    }
+
+    /**
+     * Reads the rest of the program, and indexes its scopes so the compilers may jump over them. A tokenizer of
+     * a stream forgets its tokens, so it can't be indexed
+     * @return the program's scopes
+     */
+    public ScopeIndex indexScopes() {
+        tokenizeAll();
+        scopes = ScopeIndex.of(buffer);
+        return scopes;
+    }
+
+    /**
+     * getter for the program's scopes
+     * @return the scopes indexed by indexScopes, or null if they weren't
+     */
+    public ScopeIndex getScopes() {
+        return scopes;
+    }
+
+    /**
+     * getter for a token that was already read
+     * @param position index of the token, as returned by getPosition
+     * @return the token's string
+     */
+    public String getToken(int position) {
+        return buffer.getToken(position - discarded);
     }
 
     /**
-     * getter for current token
+     * getter for the identifiers of the tokens
+     * @return the table the tokens' words are interned in
+     */
+    public IdentifierTable getIdentifiers() {
+        return buffer.getIdentifiers();
+    }
+
+    /**
+     * getter for the number of tokens read so far
+     * @return number of read tokens, including the forgotten ones
+     */
+    public int getTokenCount() {
+        return discarded + buffer.size();
+    }
+
+    /**
+     * getter for current token, the token's string is only created when it's asked for
      * @return current token
      */
     public String getCurrentToken() {
+        if (currentToken == null && currentTokenIndex >= 0) {
+            currentToken = buffer.getToken(currentTokenIndex);
+        }
         return currentToken;
     }
 
     /**
-     * Advances the token until start of commands
+     * getter for the identifier id of the current token
+     * @return the token's id in the program's IdentifierTable, or IdentifierTable.NO_IDENTIFIER if it isn't a word
      */
-    public void advanceToStart() {
-        advanceLine();
-        if (currentLine != null)
-            m = p.matcher(currentLine);
-        advance();
+    public int getCurrentSymbol() {
+        return currentLine == null ? IdentifierTable.NO_IDENTIFIER : buffer.getSymbol(currentTokenIndex);
     }
 
     /**
-     * Sets the current file reader
-     * @param reader file reader to set
+     * getter for the kind of the current token
+     * @return the token's kind, or TokenKind.END past the last token
      */
-    public void setReader(BufferedReader reader) {
-        this.reader = reader;
+    public TokenKind getCurrentKind() {
+        return currentLine == null ? TokenKind.END : buffer.getKind(currentTokenIndex);
+    }
+
+    /**
+     * Moves back to the first token of the program, so it can be replayed without reading it again.
+     * Once tokens were forgotten, moves back to the first token that wasn't
+     */
+    public void rewind() {
+        position = discarded - 1;
+        currentLineIndex = -1;
+        currentTokenIndex = -1;
+        currentToken = null;
+        currentLine = null;
+        advance();
     }
 
     /**
      * Advances currentToken to the next token
      */
     public void advance() {
-        if (m != null && m.find()) {
-            currentToken = currentLine.substring(m.start(), m.end());
-        } else {
-            advanceLine();
-            if (currentLine == null) {
+        int next = position + 1;
+        while (next - discarded >= buffer.size() && !exhausted) {
+            tokenizeLine();
+        }
+        if (next - discarded >= buffer.size()) {
+            position = discarded + buffer.size();
+            currentLine = null;
+            return;
+        }
+        position = next;
+        currentTokenIndex = position - discarded;
+        currentToken = null;
+        int line = buffer.getLine(currentTokenIndex);
+        if (line != currentLineIndex) {
+            currentLineIndex = line;
+            if (buffer.getKind(currentTokenIndex) == TokenKind.BODY) {
+                //the skipped lines aren't commands of their own, and may be long
+                currentLine = TokenKind.BODY.getText();
+            } else {
+                currentLine = line == buffer.getLineCount() - 1 && lastReadLine != null ?
+                        lastReadLine : buffer.getCommand(line);
+            }
+        }
+    }
+
+    /**
+     * getter for the current position
+     * @return index of the current token in the program
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * getter for the line of the current token
+     * @return the token's line number in the source file. Past the last token, the line of the last token
+     */
+    public int getLineNumber() {
+        int index = currentLine == null ? buffer.size() - 1 : currentTokenIndex;
+        return index < 0 ? ValidationException.NO_POSITION : buffer.getLineNumber(buffer.getLine(index));
+    }
+
+    /**
+     * getter for the column of the current token
+     * @return the column of the token's first character, from 1. Past the last token, the column right after it
+     */
+    public int getColumn() {
+        if (currentLine != null) {
+            return buffer.getColumn(currentTokenIndex);
+        }
+        int last = buffer.size() - 1;
+        return last < 0 ? ValidationException.NO_POSITION :
+                buffer.getColumn(last) + buffer.getEnd(last) - buffer.getStart(last);
+    }
+
+    /**
+     * Moves to a token that was already read, and wasn't forgotten
+     * @param position index of the token, as returned by getPosition
+     */
+    public void seek(int position) {
+        this.position = position - 1;
+        advance();
+    }
+
+    /**
+     * Advances to the '}' that closes the next scope, without creating the strings of the skipped tokens. Once
+     * the scopes are indexed, jumps straight to it
+     */
+    public void skipScope() {
+        while (currentLine != null && buffer.getKind(currentTokenIndex) != TokenKind.OPEN_SCOPE) {
+            advance();
+        }
+        if (scopes != null && currentLine != null) {
+            seek(scopes.getClose(scopes.find(position)));
+            return;
+        }
+        int depth = 0;
+        while (currentLine != null) {
+            TokenKind kind = buffer.getKind(currentTokenIndex);
+            if (kind == TokenKind.OPEN_SCOPE) {
+                depth++;
+            } else if (kind == TokenKind.CLOSE_SCOPE && --depth == 0) {
                 return;
             }
-            m = p.matcher(currentLine);
             advance();
         }
     }
 
-    private void advanceLine() {
+    /**
+     * Forgets the tokens before the current one, once there are enough of them, so a program read from a
+     * stream is never kept whole. The forgotten tokens can't be sought to anymore. A tokenizer of anything but a
+     * stream keeps all its tokens for the later passes, so it ignores this
+     */
+    public void forget() {
+        int count = Math.min(position - discarded, buffer.size());
+        if (!streaming || count < FORGET_THRESHOLD || count < buffer.size() - count) {
+            return;
+        }
+        currentLineIndex -= buffer.discard(count);
+        discarded += count;
+        currentTokenIndex = position - discarded;
+    }
+
+    private void tokenizeLine() {
+        if (lexer != null) {
+            exhausted = !lexer.tokenizeLine();
+            return;
+        }
+        String line = readCommand();
+        if (line == null) {
+            exhausted = true;
+            lastReadLine = null;
+            return;
+        }
+        lastReadLine = line;
+        int offset = buffer.addLine(line, lineNumber, lineColumn);
+        Matcher m = p.matcher(line);
+        while (m.find()) {
+            buffer.addToken(offset + m.start(), offset + m.end());
+        }
+    }
+
+    private String readCommand() {
         try {
-            read();
-            while (currentLine != null &&
-                    (currentLine.startsWith(PREFIX) || currentLine.isEmpty())) {
-                read();
+            String line = read();
+            while (line != null && (line.startsWith(PREFIX) || line.isEmpty())) {
+                line = read();
             }
-
+            return line;
         } catch (IOException e) {
-            currentLine = null;
+            return null;
         }
     }
 
-    private void read() throws IOException {
-        currentLine = reader.readLine();
-        if (currentLine != null && !currentLine.strip().startsWith(PREFIX)) {
-            currentLine = currentLine.strip();
+    private String read() throws IOException {
+        String line = reader.readLine();
+        lineNumber++;
+        lineColumn = 1;
+        if (line != null) {
+            String stripped = line.strip();
+            if (!stripped.startsWith(PREFIX)) {
+                lineColumn += line.length() - line.stripLeading().length();
+                line = stripped;
+            }
         }
+        return line;
     }
 
     /**
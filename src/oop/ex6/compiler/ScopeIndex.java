@@ -0,0 +1,281 @@
+package oop.ex6.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The scope structure of a tokenized program, found once before the compilers run, so they can jump from a '{'
+ * to the '}' that closes it instead of counting the braces between them.
+ * The tokens are cut into chunks, and the chunks are scanned in parallel for their braces and the change of depth
+ * they make. A prefix sum of the chunks' changes gives the depth every chunk starts at, so the depth after every
+ * brace is then found in parallel too, and the braces alone are paired into a tree of scopes: every scope knows
+ * its '{', its '}', the scope it's in and the statement that opened it.
+ * Lines the lexer skipped open and close as many scopes as each other, so the depths around them are right, but the
+ * scopes inside them aren't in the tree. An unbalanced program is found by the index, at its first '}' that closes
+ * nothing or, if there isn't one, its first '{' that is never closed
+ */
+public class ScopeIndex {
+    //The parent of a scope of the main scope, and the result of looking up a token that opens no scope
+    public static final int NO_SCOPE = -1;
+    //The position of the first unbalanced brace of a balanced program
+    public static final int BALANCED = -1;
+
+    //Tokens are scanned in chunks of this many tokens
+    private static final int CHUNK_TOKENS = 1 << 16;
+    private static final byte NO_KIND = -1;
+
+    private final int tokenCount;
+
+    //Braces, in the order of the file, and the depth after each of them
+    private final int[] braces;
+    private final int[] braceDepths;
+
+    //Scopes, in the order of their '{'
+    private final int[] opens;
+    private final int[] closes;
+    private final int[] parents;
+    private final int[] depths;
+    private final byte[] kinds;
+    private final int size;
+    private final int maxDepth;
+    private final int unbalanced;
+
+    private ScopeIndex(TokenBuffer buffer) {
+        tokenCount = buffer.size();
+        List<Chunk> chunks = new ArrayList<>();
+        for (int start = 0; start < tokenCount; start += CHUNK_TOKENS) {
+            chunks.add(new Chunk(buffer, start, Math.min(start + CHUNK_TOKENS, tokenCount)));
+        }
+        ForkJoinTask.invokeAll(chunks);
+
+        //the prefix sum of the chunks' changes of depth, and of their numbers of braces
+        int depth = 0, braceCount = 0;
+        for (Chunk chunk : chunks) {
+            chunk.startDepth = depth;
+            chunk.firstBrace = braceCount;
+            depth += chunk.delta;
+            braceCount += chunk.braceCount;
+        }
+        braces = new int[braceCount];
+        braceDepths = new int[braceCount];
+        for (Chunk chunk : chunks) {
+            chunk.reinitialize();
+        }
+        ForkJoinTask.invokeAll(chunks);
+
+        //pairs the braces, skipping the '}'s that close nothing
+        int openCount = 0;
+        for (int i = 0; i < braceCount; i++) {
+            if (isOpen(i)) {
+                openCount++;
+            }
+        }
+        opens = new int[openCount];
+        closes = new int[openCount];
+        parents = new int[openCount];
+        depths = new int[openCount];
+        kinds = new byte[openCount];
+        int[] open = new int[openCount];
+        int openDepth = 0, scope = 0, deepest = 0, stray = BALANCED;
+        for (int i = 0; i < braceCount; i++) {
+            if (isOpen(i)) {
+                opens[scope] = braces[i];
+                closes[scope] = tokenCount;
+                parents[scope] = openDepth == 0 ? NO_SCOPE : open[openDepth - 1];
+                depths[scope] = openDepth + 1;
+                kinds[scope] = kindOf(buffer, braces[i]);
+                open[openDepth++] = scope++;
+                deepest = Math.max(deepest, openDepth);
+            } else if (openDepth > 0) {
+                closes[open[--openDepth]] = braces[i];
+            } else if (stray == BALANCED) {
+                stray = braces[i];
+            }
+        }
+        size = openCount;
+        maxDepth = deepest;
+        unbalanced = stray != BALANCED ? stray : openDepth > 0 ? opens[open[0]] : BALANCED;
+    }
+
+    /**
+     * Indexes the scopes of a tokenized program
+     * @param buffer the program's tokens, all of which were read
+     * @return the program's scopes
+     */
+    static ScopeIndex of(TokenBuffer buffer) {
+        return new ScopeIndex(buffer);
+    }
+
+    /**
+     * Finds the scope a '{' opens
+     * @param position the brace's position, as returned by the tokenizer's getPosition
+     * @return the scope's index, or NO_SCOPE if the token opens no scope
+     */
+    public int find(int position) {
+        int scope = Arrays.binarySearch(opens, 0, size, position);
+        return scope < 0 ? NO_SCOPE : scope;
+    }
+
+    /**
+     * getter for the number of scopes
+     * @return number of indexed scopes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * getter for a scope's '{'
+     * @param scope index of the scope
+     * @return position of the brace that opens the scope
+     */
+    public int getOpen(int scope) {
+        return opens[scope];
+    }
+
+    /**
+     * getter for a scope's '}'
+     * @param scope index of the scope
+     * @return position of the brace that closes the scope, or the number of tokens if it's never closed
+     */
+    public int getClose(int scope) {
+        return closes[scope];
+    }
+
+    /**
+     * getter for the scope a scope is in
+     * @param scope index of the scope
+     * @return index of the enclosing scope, or NO_SCOPE if the scope is in the main scope
+     */
+    public int getParent(int scope) {
+        return parents[scope];
+    }
+
+    /**
+     * getter for a scope's depth
+     * @param scope index of the scope
+     * @return number of scopes the scope is in, itself included, so a method's scope is at depth 1
+     */
+    public int getDepth(int scope) {
+        return depths[scope];
+    }
+
+    /**
+     * getter for the statement that opened a scope, found from the first token of its '{''s line
+     * @param scope index of the scope
+     * @return StatementKind.METHOD, IF or WHILE, or null if the line starts with anything else
+     */
+    public StatementKind getKind(int scope) {
+        return kinds[scope] == NO_KIND ? null : StatementKind.of(kinds[scope]);
+    }
+
+    /**
+     * getter for the depth of a token, as the prefix sum of the braces before it found it
+     * @param position the token's position
+     * @return number of scopes open at the token, counting a '{' in its own scope and a '}' out of it. In an
+     * unbalanced program, only the depths before the first unbalanced brace are meaningful
+     */
+    public int getDepthAt(int position) {
+        int brace = Arrays.binarySearch(braces, position);
+        if (brace < 0) {
+            brace = -brace - 2;
+        }
+        return brace < 0 ? 0 : braceDepths[brace];
+    }
+
+    /**
+     * getter for the deepest nesting of the indexed scopes
+     * @return the largest depth of a scope, or 0 if there are none
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return true if every '{' of the program is closed, and every '}' closes a '{', false otherwise
+     */
+    public boolean isBalanced() {
+        return unbalanced == BALANCED;
+    }
+
+    /**
+     * getter for the first unbalanced brace
+     * @return position of the first '}' that closes nothing or, if there isn't one, of the first '{' that is
+     * never closed, or BALANCED
+     */
+    public int getUnbalancedPosition() {
+        return unbalanced;
+    }
+
+    private boolean isOpen(int brace) {
+        return braceDepths[brace] > (brace == 0 ? 0 : braceDepths[brace - 1]);
+    }
+
+    private static byte kindOf(TokenBuffer buffer, int open) {
+        int first = open;
+        while (first > 0 && buffer.getLine(first - 1) == buffer.getLine(open)) {
+            first--;
+        }
+        switch (buffer.getKind(first)) {
+            case VOID:
+                return (byte) StatementKind.METHOD.ordinal();
+            case IF:
+                return (byte) StatementKind.IF.ordinal();
+            case WHILE:
+                return (byte) StatementKind.WHILE.ordinal();
+            default:
+                return NO_KIND;
+        }
+    }
+
+    /**
+     * Scans a chunk of the tokens. The first run counts the chunk's braces and the change of depth they make, and
+     * once the depth the chunk starts at is known, the second run records the depth after each of its braces
+     */
+    private class Chunk extends RecursiveAction {
+        private final TokenBuffer buffer;
+        private final int start;
+        private final int end;
+        private int delta;
+        private int braceCount;
+        private int startDepth;
+        private int firstBrace;
+        private boolean counted;
+
+        Chunk(TokenBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (!counted) {
+                for (int i = start; i < end; i++) {
+                    TokenKind kind = buffer.getKind(i);
+                    if (kind == TokenKind.OPEN_SCOPE) {
+                        delta++;
+                        braceCount++;
+                    } else if (kind == TokenKind.CLOSE_SCOPE) {
+                        delta--;
+                        braceCount++;
+                    }
+                }
+                counted = true;
+                return;
+            }
+            int depth = startDepth, brace = firstBrace;
+            for (int i = start; i < end; i++) {
+                TokenKind kind = buffer.getKind(i);
+                if (kind == TokenKind.OPEN_SCOPE || kind == TokenKind.CLOSE_SCOPE) {
+                    depth += kind == TokenKind.OPEN_SCOPE ? 1 : -1;
+                    braces[brace] = i;
+                    braceDepths[brace++] = depth;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package oop.ex6.compiler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A class for loading the bytes of an SJava source file.
+ * Small files are read into the heap, while files of at least a threshold size are memory mapped, so the
+ * tokenizer scans them in place without copying them or keeping them on the heap
+ */
+public class SourceReader {
+    /**
+     * Files of this size or larger are memory mapped by default
+     */
+    public static final long DEFAULT_MAPPING_THRESHOLD = 1 << 20;
+    private static final String FILE_TOO_LARGE_MSG = "Source file is too large: ";
+
+    /**
+     * Reads a source file, mapping it if it's at least DEFAULT_MAPPING_THRESHOLD bytes long
+     * @param path path of the source file
+     * @return the bytes of the file, from index 0 to the buffer's limit
+     * @throws IOException if the file is missing or can't be read
+     */
+    public static ByteBuffer read(Path path) throws IOException {
+        return read(path, DEFAULT_MAPPING_THRESHOLD);
+    }
+
+    /**
+     * Reads a source file
+     * @param path path of the source file
+     * @param mappingThreshold files of this size or larger are memory mapped, smaller files are read
+     * @return the bytes of the file, from index 0 to the buffer's limit
+     * @throws IOException if the file is missing or can't be read
+     */
+    public static ByteBuffer read(Path path, long mappingThreshold) throws IOException {
+        return read(path, mappingThreshold, null);
+    }
+
+    /**
+     * Reads a source file, into an array of the caller's if it fits, so a caller that reads many files may read
+     * them all into the same memory
+     * @param path path of the source file
+     * @param mappingThreshold files of this size or larger are memory mapped, smaller files are read
+     * @param scratch an array to read a small enough file into, or null. Its content is replaced, and the returned
+     *                buffer wraps it until the next file is read into it
+     * @return the bytes of the file, from index 0 to the buffer's limit
+     * @throws IOException if the file is missing or can't be read
+     */
+    public static ByteBuffer read(Path path, long mappingThreshold, byte[] scratch) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(FILE_TOO_LARGE_MSG + path);
+            }
+            if (size >= mappingThreshold) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            if (scratch != null && size <= scratch.length) {
+                ByteBuffer buffer = ByteBuffer.wrap(scratch, 0, (int) size);
+                int read = 0;
+                while (buffer.hasRemaining() && read >= 0) {
+                    read = channel.read(buffer);
+                }
+                return buffer.flip();
+            }
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(path));
+    }
+}
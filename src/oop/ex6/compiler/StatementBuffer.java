@@ -0,0 +1,287 @@
+package oop.ex6.compiler;
+
+import java.util.Arrays;
+
+/**
+ * A compact record of the statements of a validated program, so later analyses don't have to read or tokenize
+ * it again.
+ * Statements are kept in the order they were checked, as parallel primitive arrays of StatementKind ordinals,
+ * identifier ids, types, flags and line numbers. A statement that opens a scope - a method, an if or a while -
+ * is followed by the statements of its scope, and knows the index after its scope's last statement, and every
+ * statement knows the statement whose scope it's in. A statement's operands - the value it assigns, the
+ * arguments of its call or the terms of its condition - are kept as identifier ids and TokenKind ordinals in
+ * parallel arrays of their own.
+ * The buffer has identifiers of its own, copied out of the program's, so it may outlive the program's text.
+ * The statements of the main scope come first, and then the methods, each in the order of the file
+ */
+public class StatementBuffer {
+    //The parent of a statement of the main scope
+    public static final int NO_PARENT = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final Type[] TYPES = Type.values();
+    private static final byte NO_TYPE = -1;
+
+    //Flags
+    private static final byte FINAL = 1;
+    private static final byte INITIALIZED = 2;
+
+    //Statements
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] symbols = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int[] operandStarts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    //Operands
+    private int[] operandSymbols = new int[INITIAL_CAPACITY];
+    private byte[] operandKinds = new byte[INITIAL_CAPACITY];
+    private int operandCount;
+
+    private final IdentifierTable identifiers = new IdentifierTable();
+
+    //Statements whose scopes are still open, innermost last
+    private int[] openScopes = new int[INITIAL_CAPACITY];
+    private int depth;
+
+    /**
+     * Records a statement in the innermost open scope. A statement that opens a scope is open until closeScope
+     * @param kind the statement's kind
+     * @param symbol the buffer's identifier id of the statement's variable or method, as returned by intern, or
+     *               IdentifierTable.NO_IDENTIFIER
+     * @param type the type of the statement's variable, or null
+     * @param isFinal whether the statement's variable is final
+     * @param line the statement's line number in the source file
+     * @return the statement's index
+     */
+    public int add(StatementKind kind, int symbol, Type type, boolean isFinal, int line) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            symbols = Arrays.copyOf(symbols, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+            flags = Arrays.copyOf(flags, size * 2);
+            parents = Arrays.copyOf(parents, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            lines = Arrays.copyOf(lines, size * 2);
+            operandStarts = Arrays.copyOf(operandStarts, size * 2);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        symbols[size] = symbol;
+        types[size] = type == null ? NO_TYPE : (byte) type.ordinal();
+        flags[size] = isFinal ? FINAL : 0;
+        parents[size] = depth == 0 ? NO_PARENT : openScopes[depth - 1];
+        ends[size] = size + 1;
+        lines[size] = line;
+        operandStarts[size] = operandCount;
+        if (kind.opensScope()) {
+            if (depth == openScopes.length) {
+                openScopes = Arrays.copyOf(openScopes, depth * 2);
+            }
+            openScopes[depth++] = size;
+        }
+        return size++;
+    }
+
+    /**
+     * Records an operand of the last recorded statement
+     * @param symbol the buffer's identifier id of the operand, as returned by intern, or
+     *               IdentifierTable.NO_IDENTIFIER if it isn't a word
+     * @param kind the operand token's kind
+     */
+    public void addOperand(int symbol, TokenKind kind) {
+        if (operandCount == operandKinds.length) {
+            operandSymbols = Arrays.copyOf(operandSymbols, operandCount * 2);
+            operandKinds = Arrays.copyOf(operandKinds, operandCount * 2);
+        }
+        operandSymbols[operandCount] = symbol;
+        operandKinds[operandCount] = (byte) kind.ordinal();
+        operandCount++;
+    }
+
+    /**
+     * Interns an identifier of the program into the buffer's own identifiers
+     * @param table the program's identifiers
+     * @param symbol the identifier's id in the program, or IdentifierTable.NO_IDENTIFIER
+     * @return the identifier's id in the buffer, or IdentifierTable.NO_IDENTIFIER
+     */
+    public int intern(IdentifierTable table, int symbol) {
+        return symbol == IdentifierTable.NO_IDENTIFIER ? symbol : identifiers.intern(table, symbol);
+    }
+
+    /**
+     * Records that the last recorded statement gives its variable a value
+     */
+    public void initialized() {
+        flags[size - 1] |= INITIALIZED;
+    }
+
+    /**
+     * Closes the innermost open scope, after its last statement
+     */
+    public void closeScope() {
+        ends[openScopes[--depth]] = size;
+    }
+
+    /**
+     * Records the statements of another buffer, whose scopes are all closed, in the innermost open scope
+     * @param other the buffer to copy
+     */
+    public void append(StatementBuffer other) {
+        for (int i = 0; i < other.size; i++) {
+            int index = add(other.getKind(i), intern(other.identifiers, other.symbols[i]), other.getType(i),
+                    other.isFinal(i), other.lines[i]);
+            flags[index] = other.flags[i];
+            if (other.parents[i] != NO_PARENT) {
+                parents[index] = other.parents[i] + index - i;
+            }
+            ends[index] = other.ends[i] + index - i;
+            for (int operand = other.operandStarts[i]; operand < other.getOperandEnd(i); operand++) {
+                addOperand(intern(other.identifiers, other.operandSymbols[operand]),
+                        TokenKind.of(other.operandKinds[operand]));
+            }
+            if (other.getKind(i).opensScope()) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Shrinks the arrays to the recorded statements, for a buffer that is kept once it's done
+     */
+    public void trim() {
+        kinds = Arrays.copyOf(kinds, size);
+        symbols = Arrays.copyOf(symbols, size);
+        types = Arrays.copyOf(types, size);
+        flags = Arrays.copyOf(flags, size);
+        parents = Arrays.copyOf(parents, size);
+        ends = Arrays.copyOf(ends, size);
+        lines = Arrays.copyOf(lines, size);
+        operandStarts = Arrays.copyOf(operandStarts, size);
+        operandSymbols = Arrays.copyOf(operandSymbols, operandCount);
+        operandKinds = Arrays.copyOf(operandKinds, operandCount);
+    }
+
+    /**
+     * getter for the number of recorded statements
+     * @return number of recorded statements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * getter for the identifiers of the statements
+     * @return the table the buffer's ids are names of
+     */
+    public IdentifierTable getIdentifiers() {
+        return identifiers;
+    }
+
+    /**
+     * getter for a statement's kind
+     * @param index index of the statement
+     * @return the statement's kind
+     */
+    public StatementKind getKind(int index) {
+        return StatementKind.of(kinds[index]);
+    }
+
+    /**
+     * getter for a statement's variable or method
+     * @param index index of the statement
+     * @return the buffer's identifier id of the declared, assigned or called name, or
+     * IdentifierTable.NO_IDENTIFIER
+     */
+    public int getSymbol(int index) {
+        return symbols[index];
+    }
+
+    /**
+     * getter for the type of a statement's variable
+     * @param index index of the statement
+     * @return the variable's type, or null if the statement has no variable
+     */
+    public Type getType(int index) {
+        return types[index] == NO_TYPE ? null : TYPES[types[index]];
+    }
+
+    /**
+     * @param index index of the statement
+     * @return true if the statement's variable is final, false otherwise
+     */
+    public boolean isFinal(int index) {
+        return (flags[index] & FINAL) != 0;
+    }
+
+    /**
+     * @param index index of the statement
+     * @return true if the statement gives its variable a value, false otherwise
+     */
+    public boolean isInitialized(int index) {
+        return (flags[index] & INITIALIZED) != 0;
+    }
+
+    /**
+     * getter for the statement whose scope a statement is in
+     * @param index index of the statement
+     * @return index of the method, if or while the statement is in, or NO_PARENT in the main scope
+     */
+    public int getParent(int index) {
+        return parents[index];
+    }
+
+    /**
+     * getter for the end of a statement's scope
+     * @param index index of the statement
+     * @return index after the last statement of the statement's scope, or the next index if it doesn't open one
+     */
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * getter for a statement's line
+     * @param index index of the statement
+     * @return the statement's line number in the source file
+     */
+    public int getLineNumber(int index) {
+        return lines[index];
+    }
+
+    /**
+     * getter for the number of a statement's operands
+     * @param index index of the statement
+     * @return number of operands
+     */
+    public int getOperandCount(int index) {
+        return getOperandEnd(index) - operandStarts[index];
+    }
+
+    /**
+     * getter for an operand's identifier id
+     * @param index index of the statement
+     * @param operand index of the operand among the statement's operands
+     * @return the buffer's identifier id of the operand, or IdentifierTable.NO_IDENTIFIER if it isn't a word
+     */
+    public int getOperandSymbol(int index, int operand) {
+        return operandSymbols[operandStarts[index] + operand];
+    }
+
+    /**
+     * getter for an operand's kind
+     * @param index index of the statement
+     * @param operand index of the operand among the statement's operands
+     * @return the kind of the operand's token
+     */
+    public TokenKind getOperandKind(int index, int operand) {
+        return TokenKind.of(operandKinds[operandStarts[index] + operand]);
+    }
+
+    private int getOperandEnd(int index) {
+        return index + 1 < size ? operandStarts[index + 1] : operandCount;
+    }
+}
@@ -0,0 +1,41 @@
+package oop.ex6.compiler;
+
+/**
+ * Enum for the kinds of statements a StatementBuffer records
+ */
+public enum StatementKind {
+    //A method, whose scope holds its parameters and its body
+    METHOD,
+    PARAMETER,
+
+    //Variables, whose operand is the value they're given, if they're given one
+    DECLARATION,
+    ASSIGNMENT,
+
+    //A call, whose operands are its arguments
+    CALL,
+
+    //Blocks, whose operands are the terms of their condition
+    IF,
+    WHILE,
+
+    RETURN;
+
+    private static final StatementKind[] KINDS = values();
+
+    /**
+     * @return true if a statement of this kind opens a scope that holds the statements after it, false otherwise
+     */
+    public boolean opensScope() {
+        return this == METHOD || this == IF || this == WHILE;
+    }
+
+    /**
+     * Finds a kind by its ordinal
+     * @param ordinal the kind's ordinal
+     * @return the kind
+     */
+    static StatementKind of(int ordinal) {
+        return KINDS[ordinal];
+    }
+}
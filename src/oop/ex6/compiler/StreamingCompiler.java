@@ -0,0 +1,128 @@
+package oop.ex6.compiler;
+
+import oop.ex6.symbol_table.SymbolTableManager;
+
+/**
+ * Validates a program in a single forward pass, so it may be read from a stream that can't be read twice, such
+ * as a pipe. The main scope is compiled the way the initializer compiles it, and every method body is checked by
+ * a StreamingEngine as soon as it's read. The tokens of a statement are forgotten once it's done, so the memory
+ * used is bounded by the declarations and the pending checks of the bodies, not by the program's size.
+ * A program gets the same result in a single pass as it gets in two
+ */
+public class StreamingCompiler extends Initializer {
+    private final StreamingEngine engine;
+    private int statementStart;
+    //the first error of the main scope that the compilation engine would find, or of the name it calls
+    private ValidationException mainError;
+    private int mainCall = IdentifierTable.NO_IDENTIFIER;
+    //the position after the last name that started a statement, where a call of the name fails
+    private int callLine;
+    private int callColumn;
+    private int mainCallLine;
+    private int mainCallColumn;
+
+    /**
+     * Constructor
+     * @param tokenizer A tokenizer object to tokenize the program, usually of a stream
+     * @param manager A SymbolTableManager object to hold the program's symbol tables
+     */
+    public StreamingCompiler(SJavaTokenizer tokenizer, SymbolTableManager manager) {
+        super(tokenizer, manager);
+        this.engine = new StreamingEngine(tokenizer, manager);
+    }
+
+    /**
+     * Validates the whole program
+     * @throws ValidationException if the program is illegal
+     */
+    public void run() throws ValidationException {
+        extractMethodsAndGlobalVariables();
+        Exception error = engine.finish();
+        if (error == null && mainCall != IdentifierTable.NO_IDENTIFIER) {
+            //a name alone is a call, which fails on its missing parenthesis if the name is a method
+            ValidationException callError = symbolTableManager.hasMethod(mainCall) ?
+                    unexpected(TokenKind.OPEN_PARENTHESIS, TokenKind.END_OF_LINE.getText()) :
+                    new ParameterException(ErrorKind.METHOD_DOESNT_EXIST);
+            error = callError.locate(mainCallLine, mainCallColumn);
+        } else if (error == null) {
+            error = mainError;
+        }
+        if (error instanceof ValidationException) {
+            throw (ValidationException) error;
+        } else if (error != null) {
+            throw (RuntimeException) error;
+        }
+    }
+
+    /**
+     * getter for the number of checks this compiler and its engine made through the Validator
+     * @return number of classifier checks
+     */
+    @Override
+    public int getClassifications() {
+        return super.getClassifications() + engine.getClassifications();
+    }
+
+    @Override
+    void compileGlobalStatement() throws ValidationException {
+        tokenizer.forget();
+        statementStart = tokenizer.getPosition();
+        boolean checking = isChecking();
+        if (checking && !isLegalLine(tokenizer.getCurrentCommand())) {
+            mainError = locate(new UnexpectedStatementException(ErrorKind.ILLEGAL_LINE_END));
+            checking = false;
+        }
+        TokenKind kind = currentKind;
+        int symbol = currentSymbol;
+        super.compileGlobalStatement();
+        if (checking && kind == TokenKind.IDENTIFIER && tokenizer.getPosition() == statementStart + 2) {
+            mainCall = symbol;
+            mainCallLine = callLine;
+            mainCallColumn = callColumn;
+        }
+    }
+
+    @Override
+    void compileMethodBody(int methodSymbol) throws ValidationException {
+        engine.settle(methodSymbol);
+        if (!isChecking()) {
+            super.compileMethodBody(methodSymbol);
+            return;
+        }
+        int bodyStart = tokenizer.getPosition();
+        engine.checkMethod(statementStart, bodyStart);
+        if (tokenizer.getPosition() < bodyStart) {
+            tokenizer.seek(bodyStart);
+        }
+        readCurrentToken();
+        skipMethodBody(engine.getOpenedScopes(), engine.getClosedScopes());
+    }
+
+    @Override
+    void compileLet(int varSymbol) throws ValidationException {
+        callLine = tokenizer.getLineNumber();
+        callColumn = tokenizer.getColumn();
+        super.compileLet(varSymbol);
+    }
+
+    @Override
+    void checkVarNameAndAdd(Type type, boolean isFinal, boolean isInitialized) throws ValidationException {
+        int symbol = currentSymbol;
+        super.checkVarNameAndAdd(type, isFinal, isInitialized);
+        engine.settle(symbol);
+    }
+
+    @Override
+    void checkVarValueAndAdd(int varSymbol) throws ValidationException {
+        super.checkVarValueAndAdd(varSymbol);
+        engine.settle(varSymbol);
+    }
+
+    /**
+     * The bodies after the first error of the program can't change its result, so they're only skipped
+     * @return true if no error was found yet
+     */
+    private boolean isChecking() {
+        return mainError == null && mainCall == IdentifierTable.NO_IDENTIFIER && !engine.hasFailed();
+    }
+}
@@ -0,0 +1,626 @@
+package oop.ex6.compiler;
+
+import oop.ex6.symbol_table.Data;
+import oop.ex6.symbol_table.SymbolTableManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A CompilationEngine that checks every method body as soon as a single pass reads it.
+ * A body may use globals and call methods that are only declared further on in the program, so whatever depends
+ * on a declaration that wasn't read yet is kept as a pending check, holding only the ids and tokens it needs.
+ * A pending check is resolved once its declaration arrives, or once the program is over. A method's error is
+ * the one its checks would have found first, whether they failed right away or were pending
+ */
+class StreamingEngine extends CompilationEngine {
+    //lookUp's value for a variable that can't be checked yet
+    private static final int PENDING = -2;
+
+    //the pending checks, by the identifier id each one waits for
+    private final Map<Integer, ArrayList<PendingCheck>> waiting = new HashMap<>();
+    //the first error of every method that has one, by the method's index
+    private final TreeMap<Integer, Failure> failures = new TreeMap<>();
+    //globals the current method assigned while they weren't known to be initialized, and the scopes they were
+    //assigned in, standing for the variables the method would have shadowed them with
+    private final ArrayList<Integer> assignedSymbols = new ArrayList<>();
+    private final ArrayList<Integer> assignedDepths = new ArrayList<>();
+    private int method = -1;
+    private int checks;
+    //the scopes of the current body, counted the way the initializer skips a body
+    private int furthest;
+    private int openedScopes;
+    private int closedScopes;
+
+    /**
+     * An error of a method, and the number of checks made in the method's program before it
+     */
+    private static class Failure {
+        private final int check;
+        private final Exception error;
+
+        private Failure(int check, Exception error) {
+            this.check = check;
+            this.error = error;
+        }
+    }
+
+    /**
+     * A variable used by a pending check. Its values are either known since it was used, or are the values its
+     * global has once it's declared
+     */
+    private class Reference {
+        private final int symbol;
+        private final String token;
+        private final int data;
+        //true if the global was assigned before it was used, so it's initialized wherever it's declared
+        private final boolean assigned;
+        //the position of the variable's token
+        private final long position;
+
+        private Reference(int symbol, String token, int data, boolean assigned, long position) {
+            this.symbol = symbol;
+            this.token = token;
+            this.data = data;
+            this.assigned = assigned;
+            this.position = position;
+        }
+
+        /**
+         * @param atEnd true if the program is over
+         * @return the id of the global the variable still waits for, or IdentifierTable.NO_IDENTIFIER
+         */
+        private int waitsFor(boolean atEnd) {
+            if (data != PENDING || atEnd) {
+                return IdentifierTable.NO_IDENTIFIER;
+            }
+            int global = symbolTableManager.getParameter(symbol);
+            return global != Data.NOT_FOUND && (assigned || Data.getInitialized(global)) ?
+                    IdentifierTable.NO_IDENTIFIER : symbol;
+        }
+
+        /**
+         * @return the packed values of the variable, Data.NOT_FOUND if it isn't declared
+         */
+        private int getData() {
+            if (data != PENDING) {
+                return data;
+            }
+            int global = symbolTableManager.getParameter(symbol);
+            return assigned && global != Data.NOT_FOUND ? Data.initialized(global) : global;
+        }
+    }
+
+    /**
+     * A check of a method body that waits for declarations further on
+     */
+    private abstract static class PendingCheck {
+        private int method;
+        private int check;
+        //the position of the token the check was deferred at, which its error is located at
+        private long position;
+
+        /**
+         * @param atEnd true if the program is over
+         * @return the id of an identifier the check still waits for, or IdentifierTable.NO_IDENTIFIER if it can
+         * be made
+         */
+        abstract int waitsFor(boolean atEnd);
+
+        /**
+         * Makes the check, once it waits for nothing
+         * @throws ValidationException if the check fails
+         */
+        abstract void check() throws ValidationException;
+    }
+
+    /**
+     * A value assigned to a variable, where either one is a global that wasn't declared or initialized yet
+     */
+    private class ValueCheck extends PendingCheck {
+        private final Reference target;
+        private final Type type;
+        private final Reference value;
+        private final String token;
+
+        /**
+         * @param target the assigned global, or null if its type is known
+         * @param type the assigned variable's type, if it's known
+         * @param value the variable whose value is assigned, or null if the value is the token itself
+         * @param token the assigned value
+         */
+        private ValueCheck(Reference target, Type type, Reference value, String token) {
+            this.target = target;
+            this.type = type;
+            this.value = value;
+            this.token = token;
+        }
+
+        @Override
+        int waitsFor(boolean atEnd) {
+            int symbol = target == null ? IdentifierTable.NO_IDENTIFIER : target.waitsFor(atEnd);
+            return symbol != IdentifierTable.NO_IDENTIFIER || value == null ? symbol : value.waitsFor(atEnd);
+        }
+
+        @Override
+        void check() throws ValidationException {
+            Type type = this.type;
+            if (target != null) {
+                int data = target.getData();
+                if (data == Data.NOT_FOUND) {
+                    //the assignment itself already failed
+                    return;
+                }
+                type = Data.getType(data);
+            }
+            if (value != null) {
+                checkVariableValue(type, value.getData());
+            } else if (!isOfType(type, token)) {
+                throw new ParameterException(ErrorKind.WRONG_TYPE);
+            }
+        }
+    }
+
+    /**
+     * An assignment to a global that wasn't declared yet
+     */
+    private class TargetCheck extends PendingCheck {
+        private final Reference target;
+
+        private TargetCheck(Reference target) {
+            this.target = target;
+        }
+
+        @Override
+        int waitsFor(boolean atEnd) {
+            return target.waitsFor(atEnd);
+        }
+
+        @Override
+        void check() throws ValidationException {
+            checkTarget(target.getData());
+        }
+    }
+
+    /**
+     * An argument of a call that is a global that wasn't declared or initialized yet
+     */
+    private class ArgumentCheck extends PendingCheck {
+        private final Type expected;
+        private final Reference argument;
+
+        private ArgumentCheck(Type expected, Reference argument) {
+            this.expected = expected;
+            this.argument = argument;
+        }
+
+        @Override
+        int waitsFor(boolean atEnd) {
+            return argument.waitsFor(atEnd);
+        }
+
+        @Override
+        void check() throws ValidationException {
+            checkArgument(expected, argument.getData(), argument.token);
+        }
+    }
+
+    /**
+     * A term of a condition that is a global that wasn't declared or initialized yet
+     */
+    private class BooleanTermCheck extends PendingCheck {
+        private final Reference term;
+
+        private BooleanTermCheck(Reference term) {
+            this.term = term;
+        }
+
+        @Override
+        int waitsFor(boolean atEnd) {
+            return term.waitsFor(atEnd);
+        }
+
+        @Override
+        void check() throws ValidationException {
+            checkBooleanTerm(term.getData(), term.token);
+        }
+    }
+
+    /**
+     * A local declared in the scope that an uninitialized global was assigned in, which fails if the global is
+     * still uninitialized once the program is over, since the global was shadowed by a variable of that scope
+     */
+    private class RedeclarationCheck extends PendingCheck {
+        private final int symbol;
+
+        private RedeclarationCheck(int symbol) {
+            this.symbol = symbol;
+        }
+
+        @Override
+        int waitsFor(boolean atEnd) {
+            int global = symbolTableManager.getParameter(symbol);
+            return atEnd || global != Data.NOT_FOUND && Data.getInitialized(global) ?
+                    IdentifierTable.NO_IDENTIFIER : symbol;
+        }
+
+        @Override
+        void check() throws ValidationException {
+            int global = symbolTableManager.getParameter(symbol);
+            if (global != Data.NOT_FOUND && !Data.getInitialized(global)) {
+                throw new IllegalIdentifierException(ErrorKind.ALREADY_ASSIGNED);
+            }
+        }
+    }
+
+    /**
+     * A call to a method that wasn't declared yet, replayed the way compileCall checks a call once the method's
+     * signature is known
+     */
+    private class CallCheck extends PendingCheck {
+        private final int methodSymbol;
+        private final ArrayList<Reference> arguments = new ArrayList<>();
+        //the number of arguments the call started to check, including one whose separator is missing, and the
+        //positions they started at
+        private int iterations;
+        private long[] starts = new long[1];
+        private boolean closed;
+        private long end;
+
+        private CallCheck(int methodSymbol) {
+            this.methodSymbol = methodSymbol;
+        }
+
+        @Override
+        int waitsFor(boolean atEnd) {
+            if (!atEnd && !symbolTableManager.hasMethod(methodSymbol)) {
+                return methodSymbol;
+            }
+            for (Reference argument : arguments) {
+                int symbol = argument.waitsFor(atEnd);
+                if (symbol != IdentifierTable.NO_IDENTIFIER) {
+                    return symbol;
+                }
+            }
+            return IdentifierTable.NO_IDENTIFIER;
+        }
+
+        @Override
+        void check() throws ValidationException {
+            if (!symbolTableManager.hasMethod(methodSymbol)) {
+                throw new ParameterException(ErrorKind.METHOD_DOESNT_EXIST);
+            }
+            byte[] signature = symbolTableManager.getSignature(methodSymbol);
+            for (int counter = 0; counter < iterations; counter++) {
+                if (counter > signature.length - 1) {
+                    throw locate(new ParameterException(ErrorKind.SIGNATURE_DOESNT_MATCH), starts[counter]);
+                }
+                if (counter < arguments.size()) {
+                    Reference argument = arguments.get(counter);
+                    try {
+                        checkArgument(Data.getSignatureType(signature, counter), argument.getData(),
+                                argument.token);
+                    } catch (ValidationException e) {
+                        throw locate(e, argument.position);
+                    }
+                }
+            }
+            if (closed && signature != null && iterations < signature.length) {
+                throw locate(new ParameterException(ErrorKind.SIGNATURE_DOESNT_MATCH), end);
+            }
+        }
+    }
+
+    /**
+     * Constructor
+     * @param tokenizer the tokenizer of the single pass
+     * @param manager the symbol tables of the single pass, whose main scope holds the globals read so far
+     */
+    StreamingEngine(SJavaTokenizer tokenizer, SymbolTableManager manager) {
+        super(tokenizer, manager);
+    }
+
+    /**
+     * Checks the next method of the program, from its declaration. The check stops at the '}' that closes the
+     * body, or at the body's first error, and the method's scopes are closed either way
+     * @param start position of the method's declaration
+     * @param bodyStart position of the first token of the method's body
+     */
+    void checkMethod(int start, int bodyStart) {
+        method++;
+        furthest = bodyStart;
+        openedScopes = 1;
+        closedScopes = 0;
+        tokenizer.seek(start);
+        readCurrentToken();
+        try {
+            compileMethodHead();
+            compileBody();
+        } catch (ValidationException e) {
+            fail(method, checks, locate(e));
+        } catch (RuntimeException e) {
+            fail(method, checks, e);
+        } finally {
+            while (symbolTableManager.getSize() > MAIN_SCOPE) {
+                closeScope();
+            }
+        }
+    }
+
+    /**
+     * Resolves the checks that wait for an identifier that was just declared or initialized
+     * @param symbol id of the identifier
+     */
+    void settle(int symbol) {
+        ArrayList<PendingCheck> pending = waiting.remove(symbol);
+        if (pending != null) {
+            for (PendingCheck check : pending) {
+                resolve(check, false);
+            }
+        }
+    }
+
+    /**
+     * Resolves all the pending checks, once the program is over
+     * @return the first error of the first method that has one, or null if all the checked methods are legal
+     */
+    Exception finish() {
+        for (ArrayList<PendingCheck> pending : waiting.values()) {
+            for (PendingCheck check : pending) {
+                resolve(check, true);
+            }
+        }
+        waiting.clear();
+        return failures.isEmpty() ? null : failures.firstEntry().getValue().error;
+    }
+
+    /**
+     * @return true if a checked method is known to have an error, even if it isn't known which one yet
+     */
+    boolean hasFailed() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * getter for the scopes opened in the current body, as the initializer counts them
+     * @return number of opened scopes, including the method's own
+     */
+    int getOpenedScopes() {
+        return openedScopes;
+    }
+
+    /**
+     * getter for the scopes closed in the current body, as the initializer counts them
+     * @return number of closed scopes
+     */
+    int getClosedScopes() {
+        return closedScopes;
+    }
+
+    @Override
+    void advance() {
+        super.advance();
+        //the initializer doesn't count the first token of a body, so neither does this
+        if (tokenizer.getPosition() > furthest) {
+            furthest = tokenizer.getPosition();
+            if (currentKind == TokenKind.OPEN_SCOPE) openedScopes++;
+            else if (currentKind == TokenKind.CLOSE_SCOPE) closedScopes++;
+        }
+    }
+
+    @Override
+    int compileStatements() throws ValidationException {
+        tokenizer.forget();
+        return super.compileStatements();
+    }
+
+    @Override
+    void closeScope() {
+        super.closeScope();
+        int depth = symbolTableManager.getSize();
+        for (int i = assignedDepths.size() - 1; i >= 0 && assignedDepths.get(i) > depth; i--) {
+            assignedSymbols.remove(i);
+            assignedDepths.remove(i);
+        }
+    }
+
+    @Override
+    void checkVarNameAndAdd(Type type, boolean isFinal, boolean isInitialized) throws ValidationException {
+        int depth = symbolTableManager.getSize();
+        for (int i = assignedSymbols.size() - 1; i >= 0 && assignedDepths.get(i) == depth; i--) {
+            if (assignedSymbols.get(i) == currentSymbol && isVarName(currentToken)) {
+                defer(new RedeclarationCheck(currentSymbol));
+                break;
+            }
+        }
+        super.checkVarNameAndAdd(type, isFinal, isInitialized);
+    }
+
+    @Override
+    void checkValue(Type type) throws ValidationException {
+        if (isVarName(currentToken)) {
+            int valueData = lookUp(currentSymbol, currentKind);
+            if (valueData == PENDING) {
+                defer(new ValueCheck(null, type, reference(currentSymbol, currentToken, valueData), currentToken));
+            } else {
+                checkVariableValue(type, valueData);
+            }
+        } else if (!isOfType(type, currentToken)) {
+            throw new ParameterException(ErrorKind.WRONG_TYPE);
+        }
+    }
+
+    @Override
+    void compileLet(int varSymbol) throws ValidationException {
+        boolean firstCheck = true;
+        //the statement's first token was already checked to be a name
+        TokenKind kind = TokenKind.IDENTIFIER;
+        while (currentKind != TokenKind.END_OF_LINE) {
+            if (!firstCheck) {
+                process(TokenKind.SEPARATOR);
+                varSymbol = currentSymbol;
+                kind = currentKind;
+                advance();
+            }
+            firstCheck = false;
+
+            int data = lookUp(varSymbol, kind);
+            if (data != PENDING) {
+                checkTarget(data);
+                process(TokenKind.ASSIGN);
+                checkValue(Data.getType(data));
+                if (!Data.getInitialized(data)) {
+                    symbolTableManager.initialized(varSymbol);
+                }
+            } else {
+                //a global that may still be declared or initialized further on, which is initialized from now on
+                int global = symbolTableManager.getParameter(varSymbol);
+                Reference target = global == Data.NOT_FOUND ? new Reference(varSymbol, null, PENDING, true,
+                        position()) : null;
+                if (global != Data.NOT_FOUND) {
+                    checkTarget(global);
+                } else {
+                    defer(new TargetCheck(target));
+                }
+                process(TokenKind.ASSIGN);
+                //the variable shadowing the global is only initialized once its value was checked
+                if (global != Data.NOT_FOUND) {
+                    checkValue(Data.getType(global));
+                } else if (isVarName(currentToken)) {
+                    Reference value = reference(currentSymbol, currentToken, lookUp(currentSymbol, currentKind));
+                    defer(new ValueCheck(target, null, value, currentToken));
+                } else {
+                    defer(new ValueCheck(target, null, null, currentToken));
+                }
+                if (!isAssigned(varSymbol)) {
+                    assignedSymbols.add(varSymbol);
+                    assignedDepths.add(symbolTableManager.getSize());
+                }
+            }
+            advance();
+        }
+        process(TokenKind.END_OF_LINE);
+    }
+
+    @Override
+    void compileCall(int methodSymbol) throws ValidationException {
+        if (symbolTableManager.hasMethod(methodSymbol)) {
+            super.compileCall(methodSymbol);
+            return;
+        }
+        //the method may still be declared further on, so the arguments are kept until its signature is known
+        CallCheck call = new CallCheck(methodSymbol);
+        defer(call);
+        process(TokenKind.OPEN_PARENTHESIS);
+        boolean firstCheck = true;
+        while (currentKind != TokenKind.CLOSE_PARENTHESIS) {
+            if (call.iterations == call.starts.length) {
+                call.starts = Arrays.copyOf(call.starts, call.iterations * 2);
+            }
+            call.starts[call.iterations++] = position();
+            if (!firstCheck) process(TokenKind.SEPARATOR);
+            call.arguments.add(reference(currentSymbol, currentToken, lookUp(currentSymbol, currentKind)));
+            advance();
+            firstCheck = false;
+        }
+        call.closed = true;
+        call.end = position();
+        process(TokenKind.CLOSE_PARENTHESIS);
+        process(TokenKind.END_OF_LINE);
+    }
+
+    @Override
+    void checkSignature(boolean firstCheck, byte[] signature, int counter) throws ValidationException {
+        if (!firstCheck) process(TokenKind.SEPARATOR);
+
+        Type expected = Data.getSignatureType(signature, counter);
+        int paramData = lookUp(currentSymbol, currentKind);
+        if (paramData == PENDING) {
+            defer(new ArgumentCheck(expected, reference(currentSymbol, currentToken, paramData)));
+        } else {
+            checkArgument(expected, paramData, currentToken);
+        }
+        advance();
+    }
+
+    @Override
+    void compileBooleanTerm() throws ValidationException {
+        int data = lookUp(currentSymbol, currentKind);
+        if (data == PENDING) {
+            defer(new BooleanTermCheck(reference(currentSymbol, currentToken, data)));
+        } else {
+            checkBooleanTerm(data, currentToken);
+        }
+        advance();
+    }
+
+    /**
+     * Looks a variable up the way the method body would see it once the whole program was read
+     * @param symbol identifier id of the variable
+     * @param kind kind of the variable's token
+     * @return the variable's packed Data, Data.NOT_FOUND if it can't be declared, or PENDING if it's a global
+     * that may still be declared or initialized further on
+     */
+    private int lookUp(int symbol, TokenKind kind) {
+        int data = symbolTableManager.getParameter(symbol);
+        if (kind != TokenKind.IDENTIFIER || data != Data.NOT_FOUND &&
+                (Data.getInitialized(data) || !symbolTableManager.isGlobal(symbol))) {
+            return data;
+        }
+        if (data != Data.NOT_FOUND && isAssigned(symbol)) {
+            return Data.initialized(data);
+        }
+        return PENDING;
+    }
+
+    private Reference reference(int symbol, String token, int data) {
+        return new Reference(symbol, token, data, data == PENDING && isAssigned(symbol), position());
+    }
+
+    /**
+     * @return the line and column of the current token, packed in a single value
+     */
+    private long position() {
+        return (long) tokenizer.getLineNumber() << Integer.SIZE | tokenizer.getColumn();
+    }
+
+    private static ValidationException locate(ValidationException error, long position) {
+        return error.locate((int) (position >>> Integer.SIZE), (int) position);
+    }
+
+    private boolean isAssigned(int symbol) {
+        return assignedSymbols.contains(symbol);
+    }
+
+    private void defer(PendingCheck check) {
+        check.method = method;
+        check.check = checks++;
+        check.position = position();
+        resolve(check, false);
+    }
+
+    private void resolve(PendingCheck check, boolean atEnd) {
+        int symbol = check.waitsFor(atEnd);
+        if (symbol != IdentifierTable.NO_IDENTIFIER) {
+            waiting.computeIfAbsent(symbol, key -> new ArrayList<>()).add(check);
+            return;
+        }
+        try {
+            check.check();
+        } catch (ValidationException e) {
+            fail(check.method, check.check, locate(e, check.position));
+        } catch (RuntimeException e) {
+            fail(check.method, check.check, e);
+        }
+    }
+
+    private void fail(int method, int check, Exception error) {
+        Failure failure = failures.get(method);
+        if (failure == null || check < failure.check) {
+            failures.put(method, new Failure(check, error));
+        }
+    }
+}
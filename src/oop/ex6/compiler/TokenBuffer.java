@@ -0,0 +1,436 @@
+package oop.ex6.compiler;
+
+import java.util.Arrays;
+
+/**
+ * A compact record of a tokenized program.
+ * Tokens are kept as parallel primitive arrays of TokenKind ordinals, offsets and line indices into a single text
+ * buffer, so a later pass can replay the program without reading or tokenizing it again.
+ * The text is either built from the lines handed to the buffer, or is the raw source itself.
+ * Words are interned as they're recorded, so later passes may compare and look identifiers up by their ids.
+ * A buffer that builds its own text may also forget its oldest tokens, once a single pass is done with them
+ */
+public class TokenBuffer {
+    //Token classes, as the tokenizers find them. Every token's TokenKind is found from its class once it's recorded
+    public static final byte SYMBOL = 0;
+    public static final byte WORD = 1;
+    public static final byte NUMBER = 2;
+    public static final byte QUOTED = 3;
+    public static final byte OPERATOR = 4;
+    //Whole lines that were skipped, recorded as a single token that is neither text nor punctuation
+    public static final byte BODY = 5;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    //Token values that are shared instead of created for every occurrence
+    private static final String[] SINGLE_CHARACTERS = new String[128];
+
+    static {
+        for (char c = 0; c < SINGLE_CHARACTERS.length; c++) {
+            SINGLE_CHARACTERS[c] = String.valueOf(c);
+        }
+    }
+
+    private CharSequence text;
+    private final StringBuilder builder;
+    private final IdentifierTable identifiers;
+
+    //Tokens
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int[] symbols = new int[INITIAL_CAPACITY];
+    private int size;
+
+    //The kind of every interned word, by its id
+    private TokenKind[] wordKinds = new TokenKind[INITIAL_CAPACITY];
+
+    //Lines
+    private int[] lineStarts = new int[INITIAL_CAPACITY];
+    private int[] lineEnds = new int[INITIAL_CAPACITY];
+    private int[] lineNumbers = new int[INITIAL_CAPACITY];
+    private int[] lineColumns = new int[INITIAL_CAPACITY];
+    private int lineCount;
+
+    /**
+     * Constructor for a buffer that builds its own text out of the lines it's given. Its identifiers are copied
+     * out of the text, so they outlive the tokens it forgets
+     */
+    public TokenBuffer() {
+        this.builder = new StringBuilder();
+        this.text = builder;
+        this.identifiers = new IdentifierTable();
+    }
+
+    /**
+     * Constructor for a buffer whose tokens and lines point into an existing text
+     * @param source the text of the whole program
+     */
+    public TokenBuffer(CharSequence source) {
+        this.builder = null;
+        this.text = source;
+        this.identifiers = new IdentifierTable(text);
+    }
+
+    /**
+     * Constructor for a buffer of some lines of a text that another buffer already tokenized the rest of.
+     * Its words are interned on top of the other buffer's identifiers, so a word of both has the same id in both
+     * @param source the text of the whole program
+     * @param identifiers the identifiers of the other buffer, which mustn't change while this buffer is used
+     */
+    public TokenBuffer(CharSequence source, IdentifierTable identifiers) {
+        this.builder = null;
+        this.text = source;
+        this.identifiers = new IdentifierTable(identifiers);
+    }
+
+    /**
+     * Forgets every token, line and identifier, so the buffer may record another program with the memory it
+     * already has. Only a buffer that points into an existing text can be reset
+     * @param source the text of the next program
+     */
+    public void reset(CharSequence source) {
+        Arrays.fill(wordKinds, 0, Math.min(identifiers.size(), wordKinds.length), null);
+        text = source;
+        identifiers.reset(source);
+        size = 0;
+        lineCount = 0;
+    }
+
+    /**
+     * Appends a line of the program to the text buffer
+     * @param line the line as the compiler should see it
+     * @param lineNumber the line's number in the source file
+     * @param column the column of the line's first character in the source file, from 1
+     * @return the offset of the line in the text buffer
+     */
+    public int addLine(String line, int lineNumber, int column) {
+        int offset = builder.length();
+        builder.append(line);
+        addLine(offset, builder.length(), lineNumber, column);
+        return offset;
+    }
+
+    /**
+     * Records a line of the program that is already in the text
+     * @param start offset of the line's first character
+     * @param end offset after the line's last character
+     * @param lineNumber the line's number in the source file
+     * @param column the column of the line's first character in the source file, from 1
+     */
+    public void addLine(int start, int end, int lineNumber, int column) {
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+            lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+            lineNumbers = Arrays.copyOf(lineNumbers, lineCount * 2);
+            lineColumns = Arrays.copyOf(lineColumns, lineCount * 2);
+        }
+        lineStarts[lineCount] = start;
+        lineEnds[lineCount] = end;
+        lineNumbers[lineCount] = lineNumber;
+        lineColumns[lineCount] = column;
+        lineCount++;
+    }
+
+    /**
+     * Records a token of the last added line, and finds its class out of its characters
+     * @param start offset of the token's first character in the text buffer
+     * @param end offset after the token's last character in the text buffer
+     */
+    public void addToken(int start, int end) {
+        addToken(classify(start, end), start, end);
+    }
+
+    /**
+     * Records a token of the last added line
+     * @param kind one of the token class constants
+     * @param start offset of the token's first character in the text buffer
+     * @param end offset after the token's last character in the text buffer
+     */
+    public void addToken(byte kind, int start, int end) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            lines = Arrays.copyOf(lines, size * 2);
+            symbols = Arrays.copyOf(symbols, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        lines[size] = lineCount - 1;
+        symbols[size] = kind == WORD ? identifiers.intern(text, start, end) : IdentifierTable.NO_IDENTIFIER;
+        kinds[size] = (byte) kindOf(kind, start, end, symbols[size]).ordinal();
+        size++;
+    }
+
+    /**
+     * Records the tokens and lines of another buffer of the same text, whose lines come right after this
+     * buffer's, such as a part of the program that was tokenized on another thread. The other buffer's words are
+     * interned again in this buffer's identifiers
+     * @param part a buffer that points into this buffer's text, with identifiers of its own
+     * @param lineNumberOffset the number to add to the other buffer's line numbers
+     */
+    public void append(TokenBuffer part, int lineNumberOffset) {
+        int[] ids = new int[part.identifiers.size()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = identifiers.intern(part.identifiers, id);
+        }
+        int tokens = size + part.size;
+        if (tokens > kinds.length) {
+            int capacity = Math.max(tokens, kinds.length * 2);
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            symbols = Arrays.copyOf(symbols, capacity);
+        }
+        System.arraycopy(part.kinds, 0, kinds, size, part.size);
+        System.arraycopy(part.starts, 0, starts, size, part.size);
+        System.arraycopy(part.ends, 0, ends, size, part.size);
+        for (int i = 0; i < part.size; i++) {
+            lines[size + i] = part.lines[i] + lineCount;
+            symbols[size + i] = part.symbols[i] == IdentifierTable.NO_IDENTIFIER ?
+                    IdentifierTable.NO_IDENTIFIER : ids[part.symbols[i]];
+        }
+        size = tokens;
+        int lineTotal = lineCount + part.lineCount;
+        if (lineTotal > lineStarts.length) {
+            int capacity = Math.max(lineTotal, lineStarts.length * 2);
+            lineStarts = Arrays.copyOf(lineStarts, capacity);
+            lineEnds = Arrays.copyOf(lineEnds, capacity);
+            lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+            lineColumns = Arrays.copyOf(lineColumns, capacity);
+        }
+        System.arraycopy(part.lineStarts, 0, lineStarts, lineCount, part.lineCount);
+        System.arraycopy(part.lineEnds, 0, lineEnds, lineCount, part.lineCount);
+        System.arraycopy(part.lineColumns, 0, lineColumns, lineCount, part.lineCount);
+        for (int i = 0; i < part.lineCount; i++) {
+            lineNumbers[lineCount + i] = part.lineNumbers[i] + lineNumberOffset;
+        }
+        lineCount = lineTotal;
+    }
+
+    /**
+     * Forgets the oldest tokens, with the lines and text that only they used. The remaining tokens and lines are
+     * renumbered from 0. Only a buffer that builds its own text can forget
+     * @param count number of tokens to forget, from the first one
+     * @return number of forgotten lines
+     */
+    public int discard(int count) {
+        int firstLine = count < size ? lines[count] : lineCount;
+        int textStart = firstLine < lineCount ? lineStarts[firstLine] : builder.length();
+        builder.delete(0, textStart);
+        size -= count;
+        System.arraycopy(kinds, count, kinds, 0, size);
+        System.arraycopy(symbols, count, symbols, 0, size);
+        for (int i = 0; i < size; i++) {
+            starts[i] = starts[count + i] - textStart;
+            ends[i] = ends[count + i] - textStart;
+            lines[i] = lines[count + i] - firstLine;
+        }
+        lineCount -= firstLine;
+        System.arraycopy(lineNumbers, firstLine, lineNumbers, 0, lineCount);
+        System.arraycopy(lineColumns, firstLine, lineColumns, 0, lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            lineStarts[i] = lineStarts[firstLine + i] - textStart;
+            lineEnds[i] = lineEnds[firstLine + i] - textStart;
+        }
+        return firstLine;
+    }
+
+    /**
+     * getter for the number of recorded tokens
+     * @return number of recorded tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * getter for the number of recorded lines
+     * @return number of recorded lines
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * getter for a token's kind
+     * @param index index of the token
+     * @return the token's kind
+     */
+    public TokenKind getKind(int index) {
+        return TokenKind.of(kinds[index]);
+    }
+
+    /**
+     * getter for a token's identifier id
+     * @param index index of the token
+     * @return the id of the word in the buffer's IdentifierTable, or IdentifierTable.NO_IDENTIFIER if the token
+     * isn't a word
+     */
+    public int getSymbol(int index) {
+        return symbols[index];
+    }
+
+    /**
+     * getter for the identifiers of the program
+     * @return the table the buffer's words are interned in
+     */
+    public IdentifierTable getIdentifiers() {
+        return identifiers;
+    }
+
+    /**
+     * getter for the index of the line a token belongs to
+     * @param index index of the token
+     * @return the line index of the token
+     */
+    public int getLine(int index) {
+        return lines[index];
+    }
+
+    /**
+     * getter for the source file line number of a recorded line
+     * @param line index of the line
+     * @return the line number in the source file
+     */
+    public int getLineNumber(int line) {
+        return lineNumbers[line];
+    }
+
+    /**
+     * getter for the offset of a recorded line's first character
+     * @param line index of the line
+     * @return offset of the line in the text
+     */
+    public int getLineStart(int line) {
+        return lineStarts[line];
+    }
+
+    /**
+     * getter for the offset after a recorded line's last character
+     * @param line index of the line
+     * @return offset after the line in the text
+     */
+    public int getLineEnd(int line) {
+        return lineEnds[line];
+    }
+
+    /**
+     * getter for the source file column of a recorded line
+     * @param line index of the line
+     * @return the column of the line's first character, from 1
+     */
+    public int getLineColumn(int line) {
+        return lineColumns[line];
+    }
+
+    /**
+     * getter for the source file column of a token
+     * @param index index of the token
+     * @return the column of the token's first character in its line, from 1
+     */
+    public int getColumn(int index) {
+        int line = lines[index];
+        return starts[index] - lineStarts[line] + lineColumns[line];
+    }
+
+    /**
+     * getter for the text the tokens point into
+     * @return the text of the buffer
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * getter for the offset of a token's first character
+     * @param index index of the token
+     * @return offset of the token in the text
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * getter for the offset after a token's last character
+     * @param index index of the token
+     * @return offset after the token in the text
+     */
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * Gets the string value of a token. Punctuation and keywords are shared, any other token is created
+     * @param index index of the token
+     * @return the token's text
+     */
+    public String getToken(int index) {
+        int start = starts[index], end = ends[index];
+        String shared = TokenKind.of(kinds[index]).getText();
+        if (shared != null) {
+            return shared;
+        }
+        if (end - start == 1 && text.charAt(start) < SINGLE_CHARACTERS.length) {
+            return SINGLE_CHARACTERS[text.charAt(start)];
+        }
+        return text.subSequence(start, end).toString();
+    }
+
+    /**
+     * Creates the string value of a line
+     * @param line index of the line
+     * @return the line's text
+     */
+    public String getCommand(int line) {
+        return text.subSequence(lineStarts[line], lineEnds[line]).toString();
+    }
+
+    private TokenKind kindOf(byte tokenClass, int start, int end, int symbol) {
+        switch (tokenClass) {
+            case WORD:
+                //ids interned on top of another buffer's don't start from 0
+                if (symbol >= wordKinds.length) {
+                    wordKinds = Arrays.copyOf(wordKinds, Math.max(symbol + 1, wordKinds.length * 2));
+                }
+                if (wordKinds[symbol] == null) {
+                    wordKinds[symbol] = TokenKind.ofWord(text, start, end);
+                }
+                return wordKinds[symbol];
+            case NUMBER:
+                return TokenKind.NUMBER;
+            case QUOTED:
+                return TokenKind.QUOTED;
+            case OPERATOR:
+                return text.charAt(start) == '|' ? TokenKind.OR : TokenKind.AND;
+            case BODY:
+                return TokenKind.BODY;
+            default:
+                return TokenKind.ofSymbol(text.charAt(start));
+        }
+    }
+
+    private byte classify(int start, int end) {
+        char first = text.charAt(start);
+        if (first == '\'' || first == '"') {
+            return end - start > 1 ? QUOTED : SYMBOL;
+        }
+        if (first >= '0' && first <= '9') {
+            return NUMBER;
+        }
+        if (first == '+' || first == '-' || first == '.') {
+            return end - start > 1 ? NUMBER : SYMBOL;
+        }
+        if (first == '_' || (first >= 'a' && first <= 'z') || (first >= 'A' && first <= 'Z')) {
+            return WORD;
+        }
+        //any other token longer than a character is a single code point outside the BMP, not an operator
+        if (end - start == 2 && (first == '|' || first == '&') && text.charAt(start + 1) == first) {
+            return OPERATOR;
+        }
+        return SYMBOL;
+    }
+}
@@ -0,0 +1,151 @@
+package oop.ex6.compiler;
+
+/**
+ * Enum for the kinds of tokens, found once for every token when it's recorded so the compilers can switch over
+ * a token's kind instead of comparing its string
+ */
+public enum TokenKind {
+    //Types
+    INT("int", Type.INT),
+    DOUBLE("double", Type.DOUBLE),
+    CHAR("char", Type.CHAR),
+    BOOLEAN("boolean", Type.BOOLEAN),
+    STRING("String", Type.STRING),
+
+    //Keywords
+    IF("if"),
+    WHILE("while"),
+    RETURN("return"),
+    VOID("void"),
+    FINAL("final"),
+    TRUE("true"),
+    FALSE("false"),
+
+    //Punctuation
+    OPEN_PARENTHESIS("("),
+    CLOSE_PARENTHESIS(")"),
+    OPEN_SCOPE("{"),
+    CLOSE_SCOPE("}"),
+    END_OF_LINE(";"),
+    SEPARATOR(","),
+    ASSIGN("="),
+    OR("||"),
+    AND("&&"),
+
+    //Literals
+    NUMBER,
+    QUOTED,
+
+    //Any other word
+    IDENTIFIER,
+    //Any other character
+    SYMBOL,
+    //Whole lines of a method body that the first pass skipped without tokenizing them
+    BODY("..."),
+    //Past the last token of the program
+    END;
+
+    private static final TokenKind[] KINDS = values();
+
+    private final String text;
+    private final Type type;
+
+    TokenKind() {
+        this(null, null);
+    }
+
+    TokenKind(String text) {
+        this(text, null);
+    }
+
+    TokenKind(String text, Type type) {
+        this.text = text;
+        this.type = type;
+    }
+
+    /**
+     * getter for the kind's text
+     * @return the text of every token of this kind, or null if tokens of this kind differ
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * getter for the type a type keyword stands for
+     * @return the kind's type, or null if the kind isn't a type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return true if the kind is one of the type keywords, false otherwise
+     */
+    public boolean isType() {
+        return type != null;
+    }
+
+    /**
+     * Finds the kind of a keyword
+     * @param text characters of a word
+     * @param start offset of the word's first character
+     * @param end offset after the word's last character
+     * @return the keyword's kind, or IDENTIFIER if the word isn't a keyword
+     */
+    static TokenKind ofWord(CharSequence text, int start, int end) {
+        for (int i = INT.ordinal(); i <= FALSE.ordinal(); i++) {
+            if (regionEquals(text, start, end, KINDS[i].text)) {
+                return KINDS[i];
+            }
+        }
+        return IDENTIFIER;
+    }
+
+    /**
+     * Finds the kind of a single character token
+     * @param symbol the token's character
+     * @return the character's kind, or SYMBOL if it isn't punctuation of SJava
+     */
+    static TokenKind ofSymbol(char symbol) {
+        switch (symbol) {
+            case '(':
+                return OPEN_PARENTHESIS;
+            case ')':
+                return CLOSE_PARENTHESIS;
+            case '{':
+                return OPEN_SCOPE;
+            case '}':
+                return CLOSE_SCOPE;
+            case ';':
+                return END_OF_LINE;
+            case ',':
+                return SEPARATOR;
+            case '=':
+                return ASSIGN;
+            default:
+                return SYMBOL;
+        }
+    }
+
+    /**
+     * getter for a kind by its ordinal
+     * @param ordinal the kind's ordinal
+     * @return the kind
+     */
+    static TokenKind of(int ordinal) {
+        return KINDS[ordinal];
+    }
+
+    private static boolean regionEquals(CharSequence text, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (text.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,7 +1,11 @@
 package oop.ex6.compiler;
 
 public class UnexpectedStatementException extends ValidationException{
-    public UnexpectedStatementException(String message) {
-        super(message);
+    public UnexpectedStatementException(ErrorKind kind) {
+        super(kind);
+    }
+
+    public UnexpectedStatementException(ErrorKind kind, Object... arguments) {
+        super(kind, arguments);
     }
 }
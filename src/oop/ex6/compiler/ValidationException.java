@@ -1,10 +1,80 @@
 package oop.ex6.compiler;
 
+import oop.ex6.events.ValidationErrorEvent;
+
 /**
- * A class for an exception that was thrown because of invalid input
+ * A class for an exception that was thrown because of invalid input.
+ * Many programs are rejected, so a validation exception is cheap to create: it has no stack trace, it carries the
+ * kind of its error and the values of its message's arguments, and its message is only formatted once it's asked
+ * for. Its position is the line and column of the token the compiler failed at, which the compiler fills in
+ * once the exception reaches it.
+ * Every validation exception is recorded as a ValidationErrorEvent when flight recording enables it
  */
 public abstract class ValidationException extends Exception {
-    public ValidationException(String message) {
-        super(message);
+    //The position of an exception that wasn't located yet
+    public static final int NO_POSITION = 0;
+    private static final Object[] NO_ARGUMENTS = {};
+
+    private final ErrorKind kind;
+    private final Object[] arguments;
+    private int line = NO_POSITION;
+    private int column = NO_POSITION;
+
+    public ValidationException(ErrorKind kind) {
+        this(kind, NO_ARGUMENTS);
+    }
+
+    public ValidationException(ErrorKind kind, Object... arguments) {
+        super(null, null, false, false);
+        this.kind = kind;
+        this.arguments = arguments;
+        ValidationErrorEvent.record(this, kind);
+    }
+
+    /**
+     * getter for the kind of the error
+     * @return the error's kind
+     */
+    public ErrorKind getKind() {
+        return kind;
+    }
+
+    /**
+     * getter for the line of the error
+     * @return the error's line number in the source file, or NO_POSITION if it wasn't located
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * getter for the column of the error
+     * @return the error's column in its line, from 1, or NO_POSITION if it wasn't located
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Formats the error's message
+     * @return the message of the error's kind, with the exception's arguments
+     */
+    @Override
+    public String getMessage() {
+        return kind.format(arguments);
+    }
+
+    /**
+     * Sets the position of the error, unless it was already located closer to where it was thrown
+     * @param line the line number in the source file
+     * @param column the column in the line
+     * @return this exception
+     */
+    ValidationException locate(int line, int column) {
+        if (this.line == NO_POSITION) {
+            this.line = line;
+            this.column = column;
+        }
+        return this;
     }
 }
@@ -0,0 +1,45 @@
+package oop.ex6.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A flight recorder event for a single pass of the compiler over a file - the Initializer's pass or the
+ * CompilationEngine's. It's recorded on the thread of the file's FileCompileEvent, which it is nested in
+ */
+@Name("oop.ex6.CompilerPass")
+@Label("SJava Compiler Pass")
+@Category({"SJava", "Compiler"})
+@Description("A pass of the compiler over a file")
+@StackTrace(false)
+@Threshold("20 ms")
+public class CompilerPassEvent extends Event {
+    public static final String INITIALIZER_PASS = "extractMethodsAndGlobalVariables";
+    public static final String ENGINE_PASS = "run";
+
+    @Label("Pass")
+    private String pass;
+
+    @Label("Tokens")
+    @Description("Number of tokens read by the end of the pass")
+    private int tokens;
+
+    /**
+     * Ends the event and records it, if it's enabled and took longer than its threshold
+     * @param pass name of the pass
+     * @param tokens number of tokens read by the end of the pass
+     */
+    public void record(String pass, int tokens) {
+        end();
+        if (shouldCommit()) {
+            this.pass = pass;
+            this.tokens = tokens;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package oop.ex6.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.nio.file.Path;
+
+/**
+ * A flight recorder event for the compilation of a single file, from its bytes to its result.
+ * Only compilations slower than the threshold are recorded unless the recording's settings lower it
+ */
+@Name("oop.ex6.FileCompile")
+@Label("SJava File Compile")
+@Category({"SJava", "Compiler"})
+@Description("Compilation of a single SJava file")
+@StackTrace(false)
+@Threshold("20 ms")
+public class FileCompileEvent extends Event {
+    @Label("File")
+    private String file;
+
+    @Label("Size")
+    @DataAmount
+    private long bytes;
+
+    @Label("Result Code")
+    private int code;
+
+    /**
+     * Ends the event and records it, if it's enabled and took longer than its threshold
+     * @param file the compiled file
+     * @param bytes size of the file
+     * @param code the compilation's result code
+     */
+    public void record(Path file, long bytes, int code) {
+        end();
+        if (shouldCommit()) {
+            this.file = String.valueOf(file);
+            this.bytes = bytes;
+            this.code = code;
+            commit();
+        }
+    }
+}
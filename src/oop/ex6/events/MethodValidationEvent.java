@@ -0,0 +1,40 @@
+package oop.ex6.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A flight recorder event for the validation of a single method body. Method bodies are checked in parallel,
+ * so the event may be recorded on another thread than its file's
+ */
+@Name("oop.ex6.MethodValidation")
+@Label("SJava Method Validation")
+@Category({"SJava", "Compiler"})
+@Description("Validation of a single method body")
+@StackTrace(false)
+@Threshold("1 ms")
+public class MethodValidationEvent extends Event {
+    @Label("Method")
+    private String method;
+
+    @Label("Tokens")
+    @Description("Number of tokens in the method, from its return type to its closing brace")
+    private int tokens;
+
+    /**
+     * Records the event. The caller ends it and checks shouldCommit() first, so the method's name is only
+     * created for events that are recorded
+     * @param method name of the method
+     * @param tokens number of tokens in the method
+     */
+    public void record(String method, int tokens) {
+        this.method = method;
+        this.tokens = tokens;
+        commit();
+    }
+}
@@ -0,0 +1,40 @@
+package oop.ex6.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for a ValidationException, recorded when it's created
+ */
+@Name("oop.ex6.ValidationError")
+@Label("SJava Validation Error")
+@Category({"SJava", "Compiler"})
+@Description("A validation error found by the compiler")
+public class ValidationErrorEvent extends Event {
+    @Label("Error Type")
+    private String type;
+
+    @Label("Error Kind")
+    private String kind;
+
+    @Label("Message")
+    private String message;
+
+    /**
+     * Records the event if it's enabled. The exception's message is only formatted if it's recorded
+     * @param error the exception
+     * @param kind kind of the error
+     */
+    public static void record(Exception error, Enum<?> kind) {
+        ValidationErrorEvent event = new ValidationErrorEvent();
+        if (event.shouldCommit()) {
+            event.type = error.getClass().getSimpleName();
+            event.kind = kind.name();
+            event.message = error.getMessage();
+            event.commit();
+        }
+    }
+}
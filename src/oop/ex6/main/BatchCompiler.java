@@ -0,0 +1,182 @@
+package oop.ex6.main;
+
+import oop.ex6.cache.ResultCache;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles many SJava files in parallel, each one with its own tokenizer, symbol tables and compilers.
+ * Files with identical content are only compiled once in a batch, and results may be kept in a ResultCache
+ * across batches
+ */
+public class BatchCompiler {
+    public static final String SOURCE_SUFFIX = ".sjava";
+    public static final String ARGUMENT_FILE_PREFIX = "@";
+    public static final String FILE_HEADER = "== ";
+    static final String INTERNAL_ERROR_MSG = "Internal compiler error: ";
+
+    private final int parallelism;
+    private final ResultCache cache;
+    private final StatsReport stats;
+
+    /**
+     * Constructor for a batch compiler that uses all the machine's cores and no disk cache
+     */
+    public BatchCompiler() {
+        this(Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /**
+     * Constructor
+     * @param parallelism number of files to compile at once
+     * @param cache an on-disk cache of results, or null to compile every distinct file
+     */
+    public BatchCompiler(int parallelism, ResultCache cache) {
+        this(parallelism, cache, null);
+    }
+
+    /**
+     * Constructor for a batch compiler that reports the stats of every file it prints
+     * @param parallelism number of files to compile at once
+     * @param cache an on-disk cache of results, or null to compile every distinct file
+     * @param stats report to add every printed file's stats to, or null to report nothing
+     */
+    public BatchCompiler(int parallelism, ResultCache cache, StatsReport stats) {
+        this.parallelism = Math.max(1, parallelism);
+        this.cache = cache;
+        this.stats = stats;
+    }
+
+    /**
+     * Expands the given arguments to a list of source files. An argument may be a file, a directory whose
+     * .sjava files are compiled, or '@' followed by a file holding one argument per line
+     * @param arguments arguments to expand
+     * @return the source files, in the order they were given
+     * @throws IOException if a directory or an argument file can't be read
+     */
+    public static List<Path> collectSources(List<String> arguments) throws IOException {
+        List<Path> sources = new ArrayList<>();
+        for (String argument : arguments) {
+            if (argument.startsWith(ARGUMENT_FILE_PREFIX)) {
+                List<String> lines = Files.readAllLines(Paths.get(argument.substring(1))).stream()
+                        .map(String::strip).filter(line -> !line.isEmpty()).collect(Collectors.toList());
+                sources.addAll(collectSources(lines));
+            } else if (Files.isDirectory(Paths.get(argument))) {
+                try (Stream<Path> files = Files.walk(Paths.get(argument))) {
+                    files.filter(file -> file.toString().endsWith(SOURCE_SUFFIX) && Files.isRegularFile(file))
+                            .sorted().forEach(sources::add);
+                }
+            } else {
+                sources.add(Paths.get(argument));
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Compiles all the given files and prints each file's result in order, as soon as it's ready. If the
+     * compiler has a stats report, every file's stats are reported along with its result, and their sum at the end
+     * @param sources files to compile
+     * @param out stream to print the results to
+     * @return the combined code of all the files - the worst code of any of them
+     */
+    public int compileAll(List<Path> sources, PrintStream out) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Future<CompilationResult>> futures = submitAll(pool, sources);
+            int combined = CompilationResult.NO_ERROR;
+            for (int i = 0; i < futures.size(); i++) {
+                CompilationResult result = await(futures.get(i), sources.get(i));
+                combined = Math.max(combined, print(result, out));
+                if (stats != null) {
+                    stats.report(result);
+                }
+            }
+            if (stats != null) {
+                stats.finish();
+            }
+            return combined;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Compiles all the given files
+     * @param sources files to compile
+     * @return the results, in the order of the given files
+     */
+    public List<CompilationResult> compileAll(List<Path> sources) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Future<CompilationResult>> futures = submitAll(pool, sources);
+            List<CompilationResult> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(await(futures.get(i), sources.get(i)));
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Prints a single file's result the way a batch is reported - a header with the file's name, followed by
+     * the file's result
+     * @param result result to print
+     * @param out stream to print to
+     * @return the result's code
+     */
+    public static int print(CompilationResult result, PrintStream out) {
+        out.println(FILE_HEADER + result.getFile());
+        result.print(out);
+        return result.getCode();
+    }
+
+    private List<Future<CompilationResult>> submitAll(ForkJoinPool pool, List<Path> sources) {
+        CachingCompiler compiler = new CachingCompiler(cache);
+        List<Future<CompilationResult>> futures = new ArrayList<>();
+        for (Path source : sources) {
+            futures.add(pool.submit(() -> compile(compiler, source)));
+        }
+        return futures;
+    }
+
+    /**
+     * Compiles a single file, turning a crash of the compiler into an INTERNAL_ERROR result of the file
+     * @param compiler compiler to use
+     * @param source file to compile
+     * @return the result of the compilation
+     */
+    static CompilationResult compile(CachingCompiler compiler, Path source) {
+        try {
+            return compiler.compile(source);
+        } catch (RuntimeException e) {
+            //a single broken file shouldn't stop the whole batch
+            return new CompilationResult(source, CompilationResult.INTERNAL_ERROR, INTERNAL_ERROR_MSG + e);
+        }
+    }
+
+    private static CompilationResult await(Future<CompilationResult> future, Path source) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new CompilationResult(source, CompilationResult.INTERNAL_ERROR, INTERNAL_ERROR_MSG + e);
+        } catch (ExecutionException e) {
+            return new CompilationResult(source, CompilationResult.INTERNAL_ERROR,
+                    INTERNAL_ERROR_MSG + e.getCause());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package oop.ex6.main;
+
+import oop.ex6.cache.ResultCache;
+import oop.ex6.compiler.CompilationStats;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles files by their content. Files whose content this compiler has already seen get the same result
+ * without being compiled again, even when they're compiled at the same time, and with a ResultCache so do
+ * files whose content was compiled by an earlier run. A cache hit is answered without tokenizing the file
+ */
+public class CachingCompiler {
+    private final ResultCache cache;
+    private final ConcurrentHashMap<String, CompletableFuture<CompilationResult>> results =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     * @param cache an on-disk cache of results, or null to only share results between identical files
+     */
+    public CachingCompiler(ResultCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Compiles a single SJava file, unless a file with the same content was already compiled
+     * @param file the file to compile
+     * @return the result of the compilation, carrying the stats of its compilation
+     */
+    public CompilationResult compile(Path file) {
+        CompilationStats stats = new CompilationStats();
+        ByteBuffer source;
+        try {
+            source = Sjavac.read(file, stats);
+        } catch (IOException e) {
+            return new CompilationResult(file, CompilationResult.FILE_ERROR, Sjavac.FILE_ERROR_MSG, stats);
+        }
+        String key = ResultCache.key(CompilerVersion.get(), source);
+        CompletableFuture<CompilationResult> compiled = new CompletableFuture<>();
+        CompletableFuture<CompilationResult> previous = results.putIfAbsent(key, compiled);
+        if (previous != null) {
+            CompilationResult result = previous.join();
+            return cached(file, result, source, stats);
+        }
+        try {
+            CompilationResult result = lookup(key, file);
+            if (result != null) {
+                result = cached(file, result, source, stats);
+            } else {
+                result = Sjavac.compile(file, source, stats);
+                if (cache != null) {
+                    cache.put(key, result.toLine());
+                }
+            }
+            compiled.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            compiled.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static CompilationResult cached(Path file, CompilationResult result, ByteBuffer source,
+                                            CompilationStats stats) {
+        stats.countSource(source);
+        stats.countCached();
+        if (result.getError() != null) {
+            return new CompilationResult(file, result.getError(), stats);
+        }
+        return new CompilationResult(file, result.getCode(), result.getMessage(), stats);
+    }
+
+    private CompilationResult lookup(String key, Path file) {
+        if (cache == null) {
+            return null;
+        }
+        String line = cache.get(key);
+        try {
+            return line == null ? null : CompilationResult.fromLine(file, line);
+        } catch (NumberFormatException e) {
+            //a damaged entry is simply compiled again
+            return null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package oop.ex6.main;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Streams over a blocking socket channel that may be read and written by two threads at once.
+ * The streams of java.nio.channels.Channels lock the channel for the whole of a blocking read, which would
+ * stop the other thread from writing
+ */
+public class ChannelStreams {
+
+    /**
+     * Creates a stream that reads from a channel
+     * @param channel a blocking socket channel
+     * @return a stream of the channel's input
+     */
+    public static InputStream input(SocketChannel channel) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                return length == 0 ? 0 : channel.read(ByteBuffer.wrap(bytes, offset, length));
+            }
+        };
+    }
+
+    /**
+     * Creates a stream that writes to a channel
+     * @param channel a blocking socket channel
+     * @return a stream of the channel's output
+     */
+    public static OutputStream output(SocketChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        };
+    }
+}
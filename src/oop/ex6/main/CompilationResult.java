@@ -0,0 +1,145 @@
+package oop.ex6.main;
+
+import oop.ex6.compiler.CompilationStats;
+import oop.ex6.compiler.ValidationException;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+/**
+ * The outcome of compiling a single SJava file.
+ * A result of a validation error keeps the error itself, whose message is only formatted once it's asked for
+ */
+public class CompilationResult {
+    public static final int NO_ERROR = 0;
+    public static final int VALIDATION_ERROR = 1;
+    public static final int FILE_ERROR = 2;
+    //The compiler itself failed, so nothing is known about the source
+    public static final int INTERNAL_ERROR = 3;
+    private static final String LINE_SEPARATOR = " ";
+
+    private final Path file;
+    private final int code;
+    private final String message;
+    private final ValidationException error;
+    private final CompilationStats stats;
+
+    /**
+     * Constructor
+     * @param file the compiled file
+     * @param code one of NO_ERROR, VALIDATION_ERROR, FILE_ERROR or INTERNAL_ERROR
+     * @param message the error's message, or null if there was no error
+     */
+    public CompilationResult(Path file, int code, String message) {
+        this(file, code, message, null);
+    }
+
+    /**
+     * Constructor for a result that carries the stats of its compilation
+     * @param file the compiled file
+     * @param code one of NO_ERROR, VALIDATION_ERROR, FILE_ERROR or INTERNAL_ERROR
+     * @param message the error's message, or null if there was no error
+     * @param stats the work done to compile the file
+     */
+    public CompilationResult(Path file, int code, String message, CompilationStats stats) {
+        this.file = file;
+        this.code = code;
+        this.message = message;
+        this.error = null;
+        this.stats = stats;
+    }
+
+    /**
+     * Constructor for the result of a validation error
+     * @param file the compiled file
+     * @param error the program's error
+     * @param stats the work done to compile the file
+     */
+    public CompilationResult(Path file, ValidationException error, CompilationStats stats) {
+        this.file = file;
+        this.code = VALIDATION_ERROR;
+        this.message = null;
+        this.error = error;
+        this.stats = stats;
+    }
+
+    /**
+     * getter for the compiled file
+     * @return the compiled file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * getter for the result code
+     * @return one of NO_ERROR, VALIDATION_ERROR, FILE_ERROR or INTERNAL_ERROR
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * getter for the error message
+     * @return the error's message, or null if there was no error
+     */
+    public String getMessage() {
+        return error == null ? message : error.getMessage();
+    }
+
+    /**
+     * getter for the validation error, along with its kind and position
+     * @return the program's error, or null if the result has none or was read back from its line
+     */
+    public ValidationException getError() {
+        return error;
+    }
+
+    /**
+     * getter for the stats of the compilation
+     * @return the work done to compile the file, or null if it wasn't counted
+     */
+    public CompilationStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Formats the result as a single line - the code, followed by a space and the message if there is one
+     * @return the result's line
+     */
+    public String toLine() {
+        String message = getMessage();
+        if (message == null) {
+            return String.valueOf(code);
+        }
+        return code + LINE_SEPARATOR + message.replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * Parses a result out of a line created by toLine
+     * @param file the compiled file
+     * @param line the result's line
+     * @return the parsed result
+     * @throws NumberFormatException if the line doesn't start with a result code
+     */
+    public static CompilationResult fromLine(Path file, String line) {
+        int separator = line.indexOf(LINE_SEPARATOR);
+        if (separator < 0) {
+            return new CompilationResult(file, Integer.parseInt(line), null);
+        }
+        return new CompilationResult(file, Integer.parseInt(line.substring(0, separator)),
+                line.substring(separator + 1));
+    }
+
+    /**
+     * Prints the result the way Sjavac reports it - the code, followed by the message if there is one
+     * @param out stream to print to
+     */
+    public void print(PrintStream out) {
+        out.println(code);
+        String message = getMessage();
+        if (message != null) {
+            out.println(message);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package oop.ex6.main;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A long running compiler server, so repeated validations don't pay for JVM startup and JIT warm up.
+ * Requests are lines holding the path of a file to compile, and every request is answered with a single
+ * line holding the result code, followed by a space and the error message if there is one.
+ * The server listens on a loopback port, on a Unix domain socket, or reads requests from its standard input.
+ * The request "--shutdown" stops a socket server
+ */
+public class CompilerDaemon {
+    public static final int DEFAULT_PORT = 7619;
+    public static final int MAX_PORT = 65535;
+    public static final String PORT_OPTION = "--port=";
+    public static final String SOCKET_OPTION = "--socket=";
+    public static final String STDIN_OPTION = "--stdin";
+    public static final String SHUTDOWN_REQUEST = "--shutdown";
+    private static final String ILLEGAL_ARGUMENT_MSG = "Illegal argument: ";
+    private static final String LISTENING_MSG = "Listening on ";
+
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    private final ForkJoinPool compilers = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private ServerSocketChannel server;
+
+    /**
+     * Main method
+     *
+     * @param args --port=N to listen on a loopback port, --socket=PATH to listen on a Unix domain socket,
+     *             or --stdin to answer requests from the standard input. Listens on DEFAULT_PORT by default
+     * @throws IOException if the server can't listen on the given address
+     */
+    public static void main(String[] args) throws IOException {
+        CompilerDaemon daemon = new CompilerDaemon();
+        if (args.length == 0) {
+            daemon.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), DEFAULT_PORT));
+        } else if (args.length == 1 && args[0].equals(STDIN_OPTION)) {
+            daemon.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+                    System.out);
+        } else if (args.length == 1 && args[0].startsWith(PORT_OPTION) &&
+                parsePort(args[0].substring(PORT_OPTION.length())) >= 0) {
+            int port = parsePort(args[0].substring(PORT_OPTION.length()));
+            daemon.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } else if (args.length == 1 && args[0].startsWith(SOCKET_OPTION)) {
+            Path socket = Paths.get(args[0].substring(SOCKET_OPTION.length()));
+            Files.deleteIfExists(socket);
+            try {
+                daemon.listen(UnixDomainSocketAddress.of(socket));
+            } finally {
+                Files.deleteIfExists(socket);
+            }
+        } else {
+            System.err.println(ILLEGAL_ARGUMENT_MSG + String.join(" ", args));
+        }
+        daemon.connections.shutdown();
+        daemon.compilers.shutdown();
+    }
+
+    /*
+     * The port a --port option names, or -1 if it isn't a number from 0 to MAX_PORT
+     */
+    private static int parsePort(String value) {
+        try {
+            int port = Integer.parseInt(value);
+            return port <= MAX_PORT ? port : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Answers the requests of every client that connects to the given address, until a shutdown request
+     * @param address a loopback or a Unix domain socket address to listen on
+     * @throws IOException if the address can't be bound
+     */
+    public void listen(SocketAddress address) throws IOException {
+        server = address instanceof UnixDomainSocketAddress ?
+                ServerSocketChannel.open(StandardProtocolFamily.UNIX) : ServerSocketChannel.open();
+        server.bind(address);
+        System.err.println(LISTENING_MSG + server.getLocalAddress());
+        try {
+            while (true) {
+                SocketChannel client = server.accept();
+                connections.execute(() -> serve(client));
+            }
+        } catch (ClosedChannelException e) {
+            //the server was shut down
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try (client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     ChannelStreams.input(client), StandardCharsets.UTF_8));
+             PrintStream out = new PrintStream(new BufferedOutputStream(ChannelStreams.output(client)), false,
+                     StandardCharsets.UTF_8)) {
+            serve(in, out);
+        } catch (IOException e) {
+            //the client went away, nothing to answer
+        }
+    }
+
+    /**
+     * Answers requests line by line, until the input is over or a shutdown request.
+     * Requests are compiled in parallel, and every answer is written as soon as it and all the answers
+     * before it are ready, so answers keep the order of the requests
+     * @param in the requests
+     * @param out stream to answer to
+     * @throws IOException if the requests can't be read
+     */
+    public void serve(BufferedReader in, PrintStream out) throws IOException {
+        CompletableFuture<Void> answered = CompletableFuture.completedFuture(null);
+        try {
+            String request;
+            while ((request = in.readLine()) != null) {
+                if (request.equals(SHUTDOWN_REQUEST)) {
+                    shutdown();
+                    return;
+                }
+                String file = request;
+                CompletableFuture<CompilationResult> result =
+                        CompletableFuture.supplyAsync(() -> compile(file), compilers);
+                answered = answered.thenCombine(result, (previous, current) -> {
+                    out.println(current.toLine());
+                    out.flush();
+                    return null;
+                });
+            }
+        } finally {
+            answered.join();
+        }
+    }
+
+    /**
+     * Stops accepting clients
+     * @throws IOException if the server can't be closed
+     */
+    public void shutdown() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private static CompilationResult compile(String request) {
+        try {
+            return Sjavac.compile(request.strip());
+        } catch (RuntimeException e) {
+            //a single broken file shouldn't stop the server
+            return new CompilationResult(null, CompilationResult.INTERNAL_ERROR,
+                    BatchCompiler.INTERNAL_ERROR_MSG + e);
+        }
+    }
+}
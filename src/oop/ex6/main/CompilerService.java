@@ -0,0 +1,177 @@
+package oop.ex6.main;
+
+import oop.ex6.compiler.CompilationStats;
+import oop.ex6.compiler.SourceReader;
+import oop.ex6.compiler.TokenBuffer;
+import oop.ex6.symbol_table.FlatSymbolTableManager;
+import oop.ex6.symbol_table.SymbolTableManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Compiles SJava programs for an application that embeds the compiler, returning their results instead of
+ * printing them. A service may be called from any number of threads at once. A crash of the compiler is returned
+ * as an INTERNAL_ERROR result, which says nothing about the program, and the workspace it crashed in is dropped.
+ * Every thread keeps a workspace of its own - symbol tables, a token buffer and an array to read sources into -
+ * that all the programs it compiles use again, so a thread that compiles many programs doesn't allocate them for
+ * every program. Programs of at least SourceReader.DEFAULT_MAPPING_THRESHOLD bytes are compiled with state of
+ * their own, so the workspaces stay small, and so is a program the thread compiles while its workspace is busy,
+ * such as a task it runs while it waits for the method bodies of another program.
+ * Batches are compiled by the service's own threads, which keep their workspaces between batches, so a service
+ * should be closed once it's no longer needed
+ */
+public class CompilerService implements AutoCloseable {
+    private static final int INITIAL_SCRATCH_LENGTH = 1 << 12;
+    private static final int ASCII_LIMIT = 0x80;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * Constructor for a service that compiles batches on all the machine's cores
+     */
+    public CompilerService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor
+     * @param parallelism number of files of a batch to compile at once
+     */
+    public CompilerService(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    /**
+     * Compiles a single SJava file
+     * @param file the file to compile
+     * @return the result of the compilation, carrying its stats, or an INTERNAL_ERROR result if the compiler
+     * crashed
+     */
+    public CompilationResult compile(Path file) {
+        return compile(file, (workspace, stats) -> workspace.read(file, stats));
+    }
+
+    /**
+     * Compiles the text of an SJava program, encoded in the platform's charset like a file is read. The result
+     * has no file
+     * @param program the program's text
+     * @return the result of the compilation, carrying its stats, or an INTERNAL_ERROR result if the compiler
+     * crashed
+     */
+    public CompilationResult compile(CharSequence program) {
+        return compile(null, (workspace, stats) -> workspace.encode(program));
+    }
+
+    /**
+     * Compiles many SJava files on the service's threads
+     * @param files files to compile
+     * @return the results, in the order of the given files
+     */
+    public List<CompilationResult> compileAll(Collection<Path> files) {
+        List<ForkJoinTask<CompilationResult>> tasks = new ArrayList<>();
+        for (Path file : files) {
+            tasks.add(pool.submit(() -> compile(file)));
+        }
+        List<CompilationResult> results = new ArrayList<>();
+        for (ForkJoinTask<CompilationResult> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Stops the service's threads once the batches they're compiling are done. Single programs may still be
+     * compiled, but no more batches
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private CompilationResult compile(Path file, Loader loader) {
+        CompilationStats stats = new CompilationStats();
+        Workspace workspace = workspaces.get();
+        if (workspace.busy) {
+            workspace = new Workspace();
+        }
+        workspace.busy = true;
+        try {
+            ByteBuffer source;
+            try {
+                source = loader.load(workspace, stats);
+            } catch (IOException e) {
+                return new CompilationResult(file, CompilationResult.FILE_ERROR, Sjavac.FILE_ERROR_MSG, stats);
+            }
+            if (source.limit() >= SourceReader.DEFAULT_MAPPING_THRESHOLD) {
+                return Sjavac.compile(file, source, stats);
+            }
+            return Sjavac.compile(file, source, stats, workspace.manager, workspace.tokens);
+        } catch (RuntimeException e) {
+            //a crash may leave the workspace half way through a program, so the thread's next program gets a new one
+            if (workspace == workspaces.get()) {
+                workspaces.remove();
+            }
+            return new CompilationResult(file, CompilationResult.INTERNAL_ERROR,
+                    BatchCompiler.INTERNAL_ERROR_MSG + e, stats);
+        } finally {
+            workspace.busy = false;
+        }
+    }
+
+    /**
+     * Loads the bytes of a program, into a workspace's array if it fits
+     */
+    private interface Loader {
+        ByteBuffer load(Workspace workspace, CompilationStats stats) throws IOException;
+    }
+
+    /**
+     * The state a thread compiles its programs with. Every program resets it before it's used, so it holds
+     * nothing of the program before
+     */
+    private static class Workspace {
+        private final SymbolTableManager manager = new FlatSymbolTableManager();
+        private final TokenBuffer tokens = new TokenBuffer("");
+        private byte[] bytes = new byte[INITIAL_SCRATCH_LENGTH];
+        //true while a program is compiled with the workspace
+        private boolean busy;
+
+        ByteBuffer read(Path file, CompilationStats stats) throws IOException {
+            ByteBuffer source = Sjavac.read(file, stats, bytes);
+            //a file that didn't fit was read into an array of its own, which is kept for the next files
+            if (source.hasArray() && source.array().length > bytes.length) {
+                bytes = source.array();
+            }
+            return source;
+        }
+
+        ByteBuffer encode(CharSequence program) {
+            int length = program.length();
+            if (length >= SourceReader.DEFAULT_MAPPING_THRESHOLD) {
+                return Charset.defaultCharset().encode(CharBuffer.wrap(program));
+            }
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, Math.min(bytes.length * 2,
+                        (int) SourceReader.DEFAULT_MAPPING_THRESHOLD))];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = program.charAt(i);
+                if (c >= ASCII_LIMIT) {
+                    return Charset.defaultCharset().encode(CharBuffer.wrap(program));
+                }
+                bytes[i] = (byte) c;
+            }
+            return ByteBuffer.wrap(bytes, 0, length);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package oop.ex6.main;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The version that cached results and program summaries are keyed by, so none of them is used by a compiler that
+ * may give another result. It's made of three parts. The first is Sjavac.COMPILER_VERSION, which is changed by hand
+ * whenever the checks change. The second is a hash of the compiler's classes as they were built, from their jar or
+ * their directory, so a build of other code never reads the results of this one, even if the constant was
+ * forgotten. The third is the default charset, which non-ASCII sources are decoded with.
+ * The classes are only hashed on the version's first use
+ */
+public class CompilerVersion {
+    private static final String SEPARATOR = "/";
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    //The build of classes that weren't loaded from a jar or a directory, which only the other parts tell apart
+    private static final String UNKNOWN_BUILD = "unknown";
+    private static final int BUILD_HASH_BYTES = 8;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static class Holder {
+        private static final String VERSION = Sjavac.COMPILER_VERSION + SEPARATOR + hashBuild() + SEPARATOR +
+                Charset.defaultCharset().name();
+    }
+
+    /**
+     * getter for the version
+     * @return the version of the running compiler
+     */
+    public static String get() {
+        return Holder.VERSION;
+    }
+
+    private static String hashBuild() {
+        try {
+            CodeSource source = CompilerVersion.class.getProtectionDomain().getCodeSource();
+            if (source == null) {
+                return UNKNOWN_BUILD;
+            }
+            Path location = Paths.get(source.getLocation().toURI());
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            if (Files.isDirectory(location)) {
+                hashDirectory(location, digest);
+            } else {
+                hashJar(location, digest);
+            }
+            byte[] hash = digest.digest();
+            char[] hex = new char[BUILD_HASH_BYTES * 2];
+            for (int i = 0; i < BUILD_HASH_BYTES; i++) {
+                hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+            }
+            return new String(hex);
+        } catch (IOException | URISyntaxException | NoSuchAlgorithmException | RuntimeException e) {
+            return UNKNOWN_BUILD;
+        }
+    }
+
+    private static void hashDirectory(Path directory, MessageDigest digest) throws IOException {
+        List<Path> classes;
+        try (Stream<Path> files = Files.walk(directory)) {
+            classes = files.filter(file -> file.toString().endsWith(CLASS_SUFFIX)).sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path file : classes) {
+            digest.update(directory.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(Files.readAllBytes(file));
+        }
+    }
+
+    private static void hashJar(Path jar, MessageDigest digest) throws IOException {
+        try (JarFile file = new JarFile(jar.toFile())) {
+            List<JarEntry> classes = file.stream().filter(entry -> entry.getName().endsWith(CLASS_SUFFIX))
+                    .sorted(Comparator.comparing(JarEntry::getName)).collect(Collectors.toList());
+            for (JarEntry entry : classes) {
+                digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = file.getInputStream(entry)) {
+                    digest.update(in.readAllBytes());
+                }
+            }
+        }
+    }
+}
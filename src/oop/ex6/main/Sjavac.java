@@ -1,24 +1,59 @@
 package oop.ex6.main;
 
+import oop.ex6.cache.ProgramSummary;
+import oop.ex6.cache.ResultCache;
 import oop.ex6.compiler.CompilationEngine;
+import oop.ex6.compiler.CompilationStats;
+import oop.ex6.compiler.CompilationStats.Phase;
 import oop.ex6.compiler.Initializer;
 import oop.ex6.compiler.SJavaTokenizer;
+import oop.ex6.compiler.SourceReader;
+import oop.ex6.compiler.StatementBuffer;
+import oop.ex6.compiler.StreamingCompiler;
+import oop.ex6.compiler.TokenBuffer;
+import oop.ex6.symbol_table.FlatSymbolTableManager;
 import oop.ex6.symbol_table.SymbolTableManager;
 import oop.ex6.compiler.ValidationException;
+import oop.ex6.events.FileCompileEvent;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Compiles an SJava program
+ * Compiles an SJava program, or a batch of them.
+ * Given a single file, prints its result code and error message. Given several files, directories or
+ * '@' argument files, compiles them all in parallel, prints every file's result and exits with the worst code.
+ * With --cache=DIR, results are kept in an on-disk cache keyed by the content of the files.
+ * With --stats (or --stats=json), the time of every phase and the work done are reported per file on the
+ * standard error, followed by their sum.
+ * Given '-' instead of a file, validates the program on the standard input in a single pass, so it may be piped
  */
 public class Sjavac {
-    private final static String NO_ERROR_PRINT = "0";
-    private final static String VALIDATION_ERROR_PRINT = "1";
     private final static String FILE_ERROR_PRINT = "2";
     public static final String FILE_ERROR_MSG = "File corrupted or doesn't exist";
     public static final String WRONG_NUMBER_OF_ARGUMENTS_MSG = "Wrong number of arguments";
+    public static final String OPTION_PREFIX = "--";
+    public static final String JOBS_OPTION = "--jobs=";
+    public static final String CACHE_OPTION = "--cache=";
+    public static final String CACHE_SIZE_OPTION = "--cache-size=";
+    public static final String STATS_OPTION = "--stats";
+    public static final String JSON_STATS_OPTION = "--stats=json";
+    public static final String UNKNOWN_OPTION_MSG = "Unknown option: ";
+    public static final String STANDARD_INPUT_ARGUMENT = "-";
+    /**
+     * Version of the validation rules, part of the CompilerVersion every cached result and summary is keyed by.
+     * Change it whenever the compiler may give a different result for the same source
+     */
+    public static final String COMPILER_VERSION = "sjavac-5";
+    private static final String JOBS_REGEX = "[1-9]\\d{0,4}";
+    private static final String SIZE_REGEX = "[1-9]\\d{0,17}";
 
     /**
      * Main method
@@ -26,35 +61,338 @@ public class Sjavac {
      * @param args arguments from the command line
      */
     public static void main(String[] args) {
-        if (args.length != 1) {
+        int jobs = Runtime.getRuntime().availableProcessors();
+        String cacheDirectory = null;
+        long cacheSize = ResultCache.DEFAULT_MAX_BYTES;
+        StatsReport stats = null;
+        List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith(JOBS_OPTION) && arg.substring(JOBS_OPTION.length()).matches(JOBS_REGEX)) {
+                jobs = Integer.parseInt(arg.substring(JOBS_OPTION.length()));
+            } else if (arg.startsWith(CACHE_OPTION)) {
+                cacheDirectory = arg.substring(CACHE_OPTION.length());
+            } else if (arg.startsWith(CACHE_SIZE_OPTION) &&
+                    arg.substring(CACHE_SIZE_OPTION.length()).matches(SIZE_REGEX)) {
+                cacheSize = Long.parseLong(arg.substring(CACHE_SIZE_OPTION.length()));
+            } else if (arg.equals(STATS_OPTION) || arg.equals(JSON_STATS_OPTION)) {
+                stats = new StatsReport(System.err, arg.equals(JSON_STATS_OPTION));
+            } else if (arg.startsWith(OPTION_PREFIX)) {
+                System.out.println(FILE_ERROR_PRINT);
+                System.out.println(UNKNOWN_OPTION_MSG + arg);
+                return;
+            } else {
+                arguments.add(arg);
+            }
+        }
+        if (arguments.isEmpty()) {
             System.out.println(FILE_ERROR_PRINT);
             System.out.println(WRONG_NUMBER_OF_ARGUMENTS_MSG);
+            return;
+        }
+        try {
+            ResultCache cache = cacheDirectory == null ? null :
+                    new ResultCache(Paths.get(cacheDirectory), cacheSize);
+            if (arguments.size() == 1 && arguments.get(0).equals(STANDARD_INPUT_ARGUMENT)) {
+                CompilationResult result = compile(System.in, new CompilationStats());
+                result.print(System.out);
+                if (stats != null) {
+                    stats.report(result);
+                    stats.finish();
+                }
+                return;
+            }
+            if (isSingleFile(arguments)) {
+                CompilationResult result = compile(new CachingCompiler(cache), arguments.get(0));
+                result.print(System.out);
+                if (stats != null) {
+                    stats.report(result);
+                    stats.finish();
+                }
+                return;
+            }
+            List<Path> sources = BatchCompiler.collectSources(arguments);
+            System.exit(new BatchCompiler(jobs, cache, stats).compileAll(sources, System.out));
+        } catch (IOException | InvalidPathException e) {
+            System.out.println(FILE_ERROR_PRINT);
+            System.out.println(FILE_ERROR_MSG);
+            System.exit(CompilationResult.FILE_ERROR);
         }
-        String filename = args[0];
-        try (FileReader fileReader = new FileReader(filename);
-             BufferedReader reader1 = new BufferedReader(fileReader);
-             FileReader fileReader2 = new FileReader(filename);
-             BufferedReader reader2 = new BufferedReader(fileReader2)) {
+    }
 
-            //Creates needed objects
-            SJavaTokenizer tokenizer = new SJavaTokenizer(reader1);
-            SymbolTableManager manager = new SymbolTableManager();
-            Initializer initializer = new Initializer(tokenizer, manager);
-            CompilationEngine compilationEngine = new CompilationEngine(tokenizer, manager);
+    /**
+     * Compiles a single SJava file. Every call uses its own tokenizer, symbol tables and compilers, so
+     * files may be compiled on several threads at once
+     * @param filename path of the file to compile
+     * @return the result of the compilation
+     */
+    public static CompilationResult compile(String filename) {
+        try {
+            return compile(Paths.get(filename));
+        } catch (InvalidPathException e) {
+            return new CompilationResult(null, CompilationResult.FILE_ERROR, FILE_ERROR_MSG);
+        }
+    }
+
+    /**
+     * Compiles a single SJava file through a caching compiler
+     * @param compiler compiler to use
+     * @param filename path of the file to compile
+     * @return the result of the compilation
+     */
+    public static CompilationResult compile(CachingCompiler compiler, String filename) {
+        try {
+            return compiler.compile(Paths.get(filename));
+        } catch (InvalidPathException e) {
+            return new CompilationResult(null, CompilationResult.FILE_ERROR, FILE_ERROR_MSG);
+        }
+    }
 
-            //Runs the compiler
-            initializer.extractMethodsAndGlobalVariables();
-            tokenizer.setReader(reader2);
-            compilationEngine.run();
-            reader1.close();
-            reader2.close();
-            System.out.println(NO_ERROR_PRINT);
+    /**
+     * Compiles a single SJava file. Every call uses its own tokenizer, symbol tables and compilers, so
+     * files may be compiled on several threads at once
+     * @param file the file to compile
+     * @return the result of the compilation
+     */
+    public static CompilationResult compile(Path file) {
+        return compile(file, new CompilationStats());
+    }
+
+    /**
+     * Compiles a single SJava file, counting the work done in every phase
+     * @param file the file to compile
+     * @param stats stats to add the compilation's work to
+     * @return the result of the compilation, carrying the given stats
+     */
+    public static CompilationResult compile(Path file, CompilationStats stats) {
+        ByteBuffer source;
+        try {
+            source = read(file, stats);
         } catch (IOException e) {
-            System.out.println(FILE_ERROR_PRINT);
-            System.out.println(FILE_ERROR_MSG);
+            return new CompilationResult(file, CompilationResult.FILE_ERROR, FILE_ERROR_MSG, stats);
+        }
+        return compile(file, source, stats);
+    }
+
+    /**
+     * Compiles the already loaded content of an SJava file. Every call uses its own tokenizer, symbol tables
+     * and compilers, so files may be compiled on several threads at once
+     * @param file the compiled file
+     * @param source the file's bytes, from index 0 to the buffer's limit
+     * @return the result of the compilation
+     */
+    public static CompilationResult compile(Path file, ByteBuffer source) {
+        return compile(file, source, new CompilationStats());
+    }
+
+    /**
+     * Compiles the already loaded content of an SJava file, counting the work done in every phase
+     * @param file the compiled file
+     * @param source the file's bytes, from index 0 to the buffer's limit
+     * @param stats stats to add the compilation's work to
+     * @return the result of the compilation, carrying the given stats
+     */
+    public static CompilationResult compile(Path file, ByteBuffer source, CompilationStats stats) {
+        return compile(file, source, stats, (StatementBuffer) null, null);
+    }
+
+    /**
+     * Compiles the already loaded content of an SJava file, and records its statements, so they can be kept and
+     * analysed without reading the file again
+     * @param file the compiled file
+     * @param source the file's bytes, from index 0 to the buffer's limit
+     * @param stats stats to add the compilation's work to
+     * @param statements an empty buffer to record the statements in, which is only complete if the program is
+     *                   legal, or null if they aren't recorded
+     * @return the result of the compilation, carrying the given stats
+     */
+    public static CompilationResult compile(Path file, ByteBuffer source, CompilationStats stats,
+                                            StatementBuffer statements) {
+        return compile(file, source, stats, statements, null);
+    }
+
+    /**
+     * Compiles the already loaded content of an SJava file, taking its methods and globals from a summary made
+     * by an earlier run instead of initializing it. A summary of any other content is ignored
+     * @param file the compiled file
+     * @param source the file's bytes, from index 0 to the buffer's limit
+     * @param stats stats to add the compilation's work to
+     * @param summary a summary of the file, as summarize made it
+     * @return the result of the compilation, carrying the given stats
+     */
+    public static CompilationResult compile(Path file, ByteBuffer source, CompilationStats stats,
+                                            ProgramSummary summary) {
+        return compile(file, source, stats, null, summary);
+    }
+
+    /**
+     * Summarizes the methods and globals of an SJava program, by initializing it without checking its method
+     * bodies. The summary may be written, and loaded by later runs to compile the same content
+     * @param source the program's bytes, from index 0 to the buffer's limit
+     * @return the summary
+     * @throws IOException if the program can't be tokenized
+     * @throws ValidationException if the main scope or a method declaration is illegal
+     */
+    public static ProgramSummary summarize(ByteBuffer source) throws IOException, ValidationException {
+        SymbolTableManager manager = new FlatSymbolTableManager();
+        SJavaTokenizer tokenizer = SJavaTokenizer.of(source);
+        tokenizer.tokenizeAll();
+        Initializer initializer = new Initializer(tokenizer, manager);
+        initializer.collectDeclarations();
+        initializer.extractMethodsAndGlobalVariables();
+        return ProgramSummary.of(ResultCache.hash(CompilerVersion.get(), source), tokenizer.getIdentifiers(), manager,
+                initializer.getMethods(), initializer.getGlobals());
+    }
+
+    /**
+     * Compiles the already loaded content of an SJava file with symbol tables and a token buffer of the caller's,
+     * which are reset first, so a caller that compiles many files may compile them all with the same memory
+     * @param file the compiled file
+     * @param source the file's bytes, from index 0 to the buffer's limit
+     * @param stats stats to add the compilation's work to
+     * @param manager symbol tables that aren't a fork
+     * @param tokens a buffer that points into an existing text, or null to record the tokens in a new buffer
+     * @return the result of the compilation, carrying the given stats
+     */
+    static CompilationResult compile(Path file, ByteBuffer source, CompilationStats stats,
+                                     SymbolTableManager manager, TokenBuffer tokens) {
+        manager.reset();
+        return compile(file, source, stats, null, null, manager, tokens);
+    }
+
+    private static CompilationResult compile(Path file, ByteBuffer source, CompilationStats stats,
+                                             StatementBuffer statements, ProgramSummary summary) {
+        return compile(file, source, stats, statements, summary, new FlatSymbolTableManager(), null);
+    }
+
+    private static CompilationResult compile(Path file, ByteBuffer source, CompilationStats stats,
+                                             StatementBuffer statements, ProgramSummary summary,
+                                             SymbolTableManager manager, TokenBuffer tokens) {
+        FileCompileEvent event = new FileCompileEvent();
+        event.begin();
+        long bytes = source.remaining();
+        CompilationResult result = compileSource(file, source, stats, statements, summary, manager, tokens);
+        event.record(file, bytes, result.getCode());
+        return result;
+    }
+
+    private static CompilationResult compileSource(Path file, ByteBuffer source, CompilationStats stats,
+                                                   StatementBuffer statements, ProgramSummary summary,
+                                                   SymbolTableManager manager, TokenBuffer tokens) {
+        stats.countSource(source);
+        long allocated = CompilationStats.allocatedBytes();
+        try {
+            //Tokenizes the program
+            long start = System.nanoTime();
+            SJavaTokenizer tokenizer = SJavaTokenizer.of(source, tokens);
+            tokenizer.indexScopes();
+            stats.countTokens(tokenizer);
+            stats.addTime(Phase.TOKENIZE, start);
+
+            //Finds the methods and globals, unless a summary of the same content already holds them
+            start = System.nanoTime();
+            if (summary != null && summary.matches(ResultCache.hash(CompilerVersion.get(), source)) &&
+                    summary.declare(manager, tokenizer.getIdentifiers())) {
+                stats.addTime(Phase.INITIALIZE, start);
+                stats.addAllocatedBytes(allocated);
+            } else {
+                Initializer initializer = new Initializer(tokenizer, manager);
+                initializer.recordStatements(statements);
+                try {
+                    initializer.extractMethodsAndGlobalVariables();
+                } finally {
+                    stats.countClassifications(initializer);
+                    stats.addTime(Phase.INITIALIZE, start);
+                    stats.addAllocatedBytes(allocated);
+                }
+            }
+
+            //Checks the statements and the method bodies
+            start = System.nanoTime();
+            CompilationEngine compilationEngine = new CompilationEngine(tokenizer, manager);
+            compilationEngine.recordStatements(statements);
+            try {
+                compilationEngine.run(stats);
+            } finally {
+                stats.countClassifications(compilationEngine);
+                stats.addTime(Phase.VALIDATE, start);
+            }
+            if (statements != null) {
+                statements.trim();
+            }
+            return new CompilationResult(file, CompilationResult.NO_ERROR, null, stats);
+        } catch (IOException e) {
+            return new CompilationResult(file, CompilationResult.FILE_ERROR, FILE_ERROR_MSG, stats);
+        } catch (ValidationException e) {
+            return new CompilationResult(file, e, stats);
+        } finally {
+            stats.countSymbolTables(manager);
+        }
+    }
+
+    /**
+     * Validates an SJava program in a single pass over a stream, keeping only what's needed of what was read.
+     * The stream is read to the program's end or to its first illegal declaration, and isn't closed
+     * @param source stream of the program's bytes
+     * @param stats stats to add the compilation's work to, all of which is counted as validation
+     * @return the result of the compilation, carrying the given stats
+     */
+    public static CompilationResult compile(InputStream source, CompilationStats stats) {
+        Path file = Paths.get(STANDARD_INPUT_ARGUMENT);
+        SymbolTableManager manager = new FlatSymbolTableManager();
+        long allocated = CompilationStats.allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            SJavaTokenizer tokenizer = SJavaTokenizer.streaming(source);
+            StreamingCompiler compiler = new StreamingCompiler(tokenizer, manager);
+            try {
+                compiler.run();
+            } finally {
+                stats.countTokens(tokenizer);
+                stats.countClassifications(compiler);
+                stats.addTime(Phase.VALIDATE, start);
+                stats.addAllocatedBytes(allocated);
+            }
+            return new CompilationResult(file, CompilationResult.NO_ERROR, null, stats);
         } catch (ValidationException e) {
-            System.out.println(VALIDATION_ERROR_PRINT);
-            System.out.println(e.getMessage());
+            return new CompilationResult(file, e, stats);
+        } finally {
+            stats.countSymbolTables(manager);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads a whole SJava file, counting the time and allocation it took
+     * @param file the file to read
+     * @param stats stats to add the read to
+     * @return the file's bytes
+     * @throws IOException if the file can't be read
+     */
+    static ByteBuffer read(Path file, CompilationStats stats) throws IOException {
+        return read(file, stats, null);
+    }
+
+    /**
+     * Reads a whole SJava file, into an array of the caller's if it fits, counting the time and allocation it took
+     * @param file the file to read
+     * @param stats stats to add the read to
+     * @param scratch an array to read a small enough file into, or null
+     * @return the file's bytes
+     * @throws IOException if the file can't be read
+     */
+    static ByteBuffer read(Path file, CompilationStats stats, byte[] scratch) throws IOException {
+        long allocated = CompilationStats.allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            return SourceReader.read(file, SourceReader.DEFAULT_MAPPING_THRESHOLD, scratch);
+        } finally {
+            stats.addTime(Phase.READ, start);
+            stats.addAllocatedBytes(allocated);
+        }
+    }
+
+    private static boolean isSingleFile(List<String> arguments) {
+        String argument = arguments.get(0);
+        return arguments.size() == 1 && !argument.startsWith(BatchCompiler.ARGUMENT_FILE_PREFIX) &&
+                !new File(argument).isDirectory();
+    }
+}
@@ -0,0 +1,129 @@
+package oop.ex6.main;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small launcher for build scripts, that sends files to a running CompilerDaemon and prints their results
+ * the same way Sjavac does, and exits with the worst result code. If no daemon is running, the files are
+ * compiled in process instead.
+ * A daemon's requests only carry files, so the client given any of Sjavac's options, or '-' for the standard input,
+ * runs Sjavac in process with all its arguments, which applies the options and rejects the unknown ones
+ */
+public class SjavacClient {
+
+    /**
+     * Main method
+     *
+     * @param args --port=N or --socket=PATH to choose the daemon (CompilerDaemon.DEFAULT_PORT by default),
+     *             followed by the files, directories or '@' argument files to compile, and by Sjavac's options
+     */
+    public static void main(String[] args) {
+        SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                CompilerDaemon.DEFAULT_PORT);
+        List<String> arguments = new ArrayList<>();
+        boolean inProcess = false;
+        for (String arg : args) {
+            if (arg.startsWith(CompilerDaemon.PORT_OPTION)) {
+                address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        Integer.parseInt(arg.substring(CompilerDaemon.PORT_OPTION.length())));
+            } else if (arg.startsWith(CompilerDaemon.SOCKET_OPTION)) {
+                address = UnixDomainSocketAddress.of(arg.substring(CompilerDaemon.SOCKET_OPTION.length()));
+            } else {
+                inProcess |= arg.startsWith(Sjavac.OPTION_PREFIX) || arg.equals(Sjavac.STANDARD_INPUT_ARGUMENT);
+                arguments.add(arg);
+            }
+        }
+        if (inProcess) {
+            Sjavac.main(arguments.toArray(new String[0]));
+            return;
+        }
+
+        List<Path> sources;
+        try {
+            sources = BatchCompiler.collectSources(arguments);
+        } catch (IOException | InvalidPathException e) {
+            sources = null;
+        }
+        if (sources == null || sources.isEmpty()) {
+            //let Sjavac report the bad arguments
+            Sjavac.main(arguments.toArray(new String[0]));
+            return;
+        }
+
+        List<CompilationResult> results;
+        try {
+            results = request(address, sources);
+        } catch (IOException e) {
+            //no daemon to talk to
+            results = new BatchCompiler().compileAll(sources);
+        }
+        System.exit(print(results, arguments.size() == 1 && sources.size() == 1 &&
+                sources.get(0).toString().equals(arguments.get(0)), System.out));
+    }
+
+    /**
+     * Sends files to a daemon and waits for their results
+     * @param address the daemon's address
+     * @param sources files to compile
+     * @return the results, in the order of the given files
+     * @throws IOException if the daemon can't be reached
+     */
+    public static List<CompilationResult> request(SocketAddress address, List<Path> sources)
+            throws IOException {
+        try (SocketChannel channel = address instanceof UnixDomainSocketAddress ?
+                SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open()) {
+            channel.connect(address);
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    ChannelStreams.input(channel), StandardCharsets.UTF_8));
+            PrintStream out = new PrintStream(new BufferedOutputStream(ChannelStreams.output(channel)), false,
+                    StandardCharsets.UTF_8);
+
+            //send the requests while reading the answers, so neither side waits for the other to read
+            Thread sender = new Thread(() -> {
+                for (Path source : sources) {
+                    out.println(source.toAbsolutePath());
+                }
+                out.flush();
+            });
+            sender.setDaemon(true);
+            sender.start();
+            List<CompilationResult> results = new ArrayList<>();
+            for (Path source : sources) {
+                String line = in.readLine();
+                if (line == null) {
+                    throw new IOException();
+                }
+                results.add(CompilationResult.fromLine(source, line));
+            }
+            return results;
+        }
+    }
+
+    private static int print(List<CompilationResult> results, boolean singleFile, PrintStream out) {
+        if (singleFile) {
+            results.get(0).print(out);
+            return results.get(0).getCode();
+        }
+        int combined = CompilationResult.NO_ERROR;
+        for (CompilationResult result : results) {
+            combined = Math.max(combined, BatchCompiler.print(result, out));
+        }
+        return combined;
+    }
+}
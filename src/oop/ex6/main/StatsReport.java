@@ -0,0 +1,75 @@
+package oop.ex6.main;
+
+import oop.ex6.compiler.CompilationStats;
+
+import java.io.PrintStream;
+
+/**
+ * Prints the stats of compiled files as they're reported, either as human readable text or as a single JSON
+ * document, and their sum once the whole batch is over
+ */
+public class StatsReport {
+    private static final String TOTAL_HEADER = "total";
+
+    private final PrintStream out;
+    private final boolean json;
+    private final CompilationStats total = new CompilationStats();
+    private int reported;
+
+    /**
+     * Constructor
+     * @param out stream to print the stats to
+     * @param json true to print JSON, false to print text
+     */
+    public StatsReport(PrintStream out, boolean json) {
+        this.out = out;
+        this.json = json;
+    }
+
+    /**
+     * Prints the stats of a single file and adds them to the total
+     * @param result the file's result
+     */
+    public void report(CompilationResult result) {
+        CompilationStats stats = result.getStats() == null ? new CompilationStats() : result.getStats();
+        total.add(stats);
+        String file = String.valueOf(result.getFile());
+        if (json) {
+            out.print(reported == 0 ? "{\"files\": [\n" : ",\n");
+            out.print("  {\"file\": " + quote(file) + ", \"code\": " + result.getCode() + ", " + stats.toJson() + "}");
+        } else {
+            out.println(file + ":");
+            out.print(stats.toText());
+        }
+        reported++;
+    }
+
+    /**
+     * Prints the sum of the stats of all the reported files
+     */
+    public void finish() {
+        if (json) {
+            out.print(reported == 0 ? "{\"files\": [" : "\n");
+            out.println("], \"" + TOTAL_HEADER + "\": {" + total.toJson() + "}}");
+        } else {
+            out.println(TOTAL_HEADER + ":");
+            out.print(total.toText());
+        }
+        out.flush();
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -2,75 +2,86 @@ package oop.ex6.symbol_table;
 
 import oop.ex6.compiler.Type;
 
-import java.util.ArrayList;
-
 /**
- * A nested class for all the values needed to define a variable
+ * The values needed to define a variable, packed into the bits of a single int:
+ * the type's ordinal, whether the variable is final and whether it's initialized.
+ * Symbol tables keep these ints in primitive arrays instead of keeping an object per variable
  */
-public class Data {
-    private final Type type;
-    private final boolean isFinal;
-    private ArrayList<Type> signature;
-    private boolean isInitialized;
+public final class Data {
+    public static final int NOT_FOUND = -1;
+    private static final Type[] TYPES = Type.values();
+    private static final int TYPE_MASK = 0xFF;
+    private static final int FINAL = 1 << 8;
+    private static final int INITIALIZED = 1 << 9;
+
+    private Data() {
+    }
 
     /**
-     * Constructor
+     * Packs the values of a new, uninitialized variable
      * @param type variable type
      * @param isFinal is variable final or not
+     * @return the packed values
      */
-    public Data(Type type, boolean isFinal){
-        this.type = type;
-        this.isFinal = isFinal;
-        this.signature = null;
-        this.isInitialized = false;
+    public static int of(Type type, boolean isFinal) {
+        return type.ordinal() | (isFinal ? FINAL : 0);
     }
 
     /**
      * getter for variable's type
+     * @param data packed values of a variable
      * @return variable's type
      */
-    public Type getType(){
-        return this.type;
+    public static Type getType(int data) {
+        return TYPES[data & TYPE_MASK];
     }
 
     /**
      * sets the variable status to initialized
+     * @param data packed values of a variable
+     * @return the packed values of the variable once it's initialized
      */
-    public void initialized() {
-        isInitialized = true;
+    public static int initialized(int data) {
+        return data | INITIALIZED;
     }
 
     /**
-     *
+     * @param data packed values of a variable
      * @return true if the variable is initialized, false otherwise
      */
-    public boolean getInitialized() {
-        return isInitialized;
+    public static boolean getInitialized(int data) {
+        return (data & INITIALIZED) != 0;
     }
 
     /**
-     * a getter for a method's signature
-     * @return a list holding the needed types from the signature
+     * getter for the isFinal field
+     * @param data packed values of a variable
+     * @return true if the variable is final, false otherwise
      */
-    public ArrayList<Type> getSignature(){
-        return this.signature;
+    public static boolean isFinal(int data) {
+        return (data & FINAL) != 0;
     }
 
     /**
-     * getter for the isFinal field
-     * @return true if the variable is final, false otherwise
+     * Packs a method's signature
+     * @param types the needed types from the signature
+     * @return the types' ordinals, one byte each
      */
-    public boolean isFinal(){
-        return this.isFinal;
+    public static byte[] signatureOf(Type... types) {
+        byte[] signature = new byte[types.length];
+        for (int i = 0; i < types.length; i++) {
+            signature[i] = (byte) types[i].ordinal();
+        }
+        return signature;
     }
 
     /**
-     * setter for a method's signature
-     * @param signature signature to set
+     * Unpacks a single type of a method's signature
+     * @param signature a packed signature
+     * @param index index of the parameter
+     * @return the parameter's type
      */
-    public void setSignature(ArrayList<Type> signature){
-        this.signature = signature;
+    public static Type getSignatureType(byte[] signature, int index) {
+        return TYPES[signature[index]];
     }
 }
-
-
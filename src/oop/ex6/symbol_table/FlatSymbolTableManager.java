@@ -0,0 +1,239 @@
+package oop.ex6.symbol_table;
+
+import oop.ex6.compiler.Type;
+
+import java.util.Arrays;
+
+/**
+ * A SymbolTableManager that keeps all the scopes in a single map instead of a linked list of symbol tables.
+ * Every identifier id is mapped to its innermost declaration, which links to the declaration it shadows.
+ * Declarations are kept in primitive arrays in the order they were made, so they also serve as the log that
+ * closing a scope undoes. Looking a name up and closing a scope don't depend on how deeply the scopes are nested.
+ * A fork only reads the global declarations, so the uninitialized globals its method assigns are kept as bitsets
+ * indexed by the globals' declarations: one of the globals assigned in any open scope, and one for every open
+ * scope of the globals assigned in it. Closing a scope clears its bits out of the first bitset, a word at a time,
+ * so a global is only initialized in the scope that assigned it, and in the scopes that scope holds
+ */
+public class FlatSymbolTableManager extends SymbolTableManager {
+    private static final int GLOBAL_SCOPE = 1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int WORD_SHIFT = 6;
+
+    private final SymbolMap innermost = new SymbolMap();
+    private final FlatSymbolTableManager globals;
+
+    //Declarations
+    private int[] symbols = new int[INITIAL_CAPACITY];
+    private int[] data = new int[INITIAL_CAPACITY];
+    private int[] depths = new int[INITIAL_CAPACITY];
+    private int[] shadowed = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private int[] scopeStarts = new int[INITIAL_CAPACITY];
+    private int depth;
+
+    //Assigned globals of a fork, by their declaration in the global manager. A depth's bitset is only created
+    //once a scope of that depth assigns a global, and is cleared and reused once the scope is closed
+    private final long[] assigned;
+    private long[][] scopeAssigned;
+    private boolean[] scopeAssigns;
+
+    /**
+     * Constructor
+     */
+    public FlatSymbolTableManager() {
+        this.globals = null;
+        this.assigned = null;
+    }
+
+    private FlatSymbolTableManager(FlatSymbolTableManager global) {
+        super(global);
+        this.globals = global;
+        this.depth = GLOBAL_SCOPE;
+        this.assigned = new long[(global.size >>> WORD_SHIFT) + 1];
+        this.scopeAssigned = new long[INITIAL_CAPACITY][];
+        this.scopeAssigns = new boolean[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Forgets every scope, method and counter, keeping the arrays and map the earlier programs grew, so the
+     * manager may check another program without allocating them again
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        innermost.clear();
+        size = 0;
+        depth = 0;
+    }
+
+    /**
+     * Opens a new scope
+     */
+    @Override
+    public void openScope() {
+        if (depth == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, depth * 2);
+        }
+        scopeStarts[depth++] = size;
+        countScope(depth);
+    }
+
+    /**
+     * Getter for the number of open scopes
+     * @return number of open scopes
+     */
+    @Override
+    public int getSize() {
+        return depth;
+    }
+
+    /**
+     * Closes the innermost scope, undoing its declarations
+     */
+    @Override
+    public void closeScope() {
+        if (assigned != null && depth < scopeAssigns.length && scopeAssigns[depth]) {
+            long[] scope = scopeAssigned[depth];
+            for (int word = 0; word < assigned.length; word++) {
+                assigned[word] &= ~scope[word];
+                scope[word] = 0;
+            }
+            scopeAssigns[depth] = false;
+        }
+        int start = scopeStarts[--depth];
+        while (size > start) {
+            size--;
+            if (shadowed[size] == SymbolMap.MISSING) {
+                innermost.remove(symbols[size]);
+            } else {
+                innermost.put(symbols[size], shadowed[size]);
+            }
+        }
+    }
+
+    /**
+     * Looks for a variable in the open scopes, and returns it if found
+     * @param symbol identifier id of the variable to look for
+     * @return the packed Data of the innermost declaration if found, Data.NOT_FOUND otherwise
+     */
+    @Override
+    public int getParameter(int symbol) {
+        lookups++;
+        return find(symbol);
+    }
+
+    private int find(int symbol) {
+        //the global manager is shared by the forks, so it's looked up without counting
+        int declaration = innermost.get(symbol);
+        if (declaration != SymbolMap.MISSING) {
+            return data[declaration];
+        }
+        int global = globals == null ? SymbolMap.MISSING : globals.innermost.get(symbol);
+        if (global == SymbolMap.MISSING) {
+            return Data.NOT_FOUND;
+        }
+        return isSet(assigned, global) ? Data.initialized(globals.data[global]) : globals.data[global];
+    }
+
+    /**
+     * Sets the innermost declaration of a variable to initialized. A global that a fork initializes is only
+     * initialized until the innermost scope is closed
+     * @param symbol identifier id of a declared variable
+     */
+    @Override
+    public void initialized(int symbol) {
+        int declaration = innermost.get(symbol);
+        if (declaration != SymbolMap.MISSING) {
+            data[declaration] = Data.initialized(data[declaration]);
+            return;
+        }
+        int global = globals == null ? SymbolMap.MISSING : globals.innermost.get(symbol);
+        if (global == SymbolMap.MISSING || Data.getInitialized(globals.data[global]) || isSet(assigned, global)) {
+            return;
+        }
+        if (depth >= scopeAssigned.length) {
+            scopeAssigned = Arrays.copyOf(scopeAssigned, depth * 2);
+            scopeAssigns = Arrays.copyOf(scopeAssigns, depth * 2);
+        }
+        if (scopeAssigned[depth] == null) {
+            scopeAssigned[depth] = new long[assigned.length];
+        }
+        scopeAssigns[depth] = true;
+        set(assigned, global);
+        set(scopeAssigned[depth], global);
+    }
+
+    /**
+     * Adds a parameter to the innermost scope
+     * @param symbol identifier id of the var to add
+     * @param type var type
+     * @param isFinal true if the var is final, false otherwise
+     * @return true if succeeded in adding, false if the scope already declares the name
+     */
+    @Override
+    public boolean addParameter(int symbol, Type type, boolean isFinal) {
+        int declaration = innermost.get(symbol);
+        if (declaration != SymbolMap.MISSING ? depths[declaration] == depth : isDeclaredGlobal(symbol)) {
+            return false;
+        }
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+            data = Arrays.copyOf(data, size * 2);
+            depths = Arrays.copyOf(depths, size * 2);
+            shadowed = Arrays.copyOf(shadowed, size * 2);
+        }
+        symbols[size] = symbol;
+        data[size] = Data.of(type, isFinal);
+        depths[size] = depth;
+        shadowed[size] = declaration;
+        innermost.put(symbol, size++);
+        return true;
+    }
+
+    //Whether a name only declared globally can't be declared in the innermost scope: in the global scope itself,
+    //or in a scope that assigned the global, which counts as that scope's own variable
+    private boolean isDeclaredGlobal(int symbol) {
+        if (globals == null) {
+            return false;
+        }
+        int global = globals.innermost.get(symbol);
+        if (global == SymbolMap.MISSING) {
+            return false;
+        }
+        return depth == GLOBAL_SCOPE ||
+                depth < scopeAssigns.length && scopeAssigns[depth] && isSet(scopeAssigned[depth], global);
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> WORD_SHIFT] & 1L << index) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> WORD_SHIFT] |= 1L << index;
+    }
+
+    /**
+     * Checks if a variable's innermost declaration is in the global scope
+     * @param symbol identifier id of the variable
+     * @return true if the variable is only declared in the global scope, false otherwise
+     */
+    @Override
+    public boolean isGlobal(int symbol) {
+        int declaration = innermost.get(symbol);
+        if (declaration != SymbolMap.MISSING) {
+            return depths[declaration] == GLOBAL_SCOPE;
+        }
+        return globals != null && globals.isGlobal(symbol);
+    }
+
+    /**
+     * Creates a manager holding only the global scope and the methods of this one, to check a method body with.
+     * The global declarations are shared and only read, declarations the method makes are kept by the new manager
+     * @return a new manager over the same global scope
+     */
+    @Override
+    public SymbolTableManager forkGlobalScope() {
+        return new FlatSymbolTableManager(this);
+    }
+}
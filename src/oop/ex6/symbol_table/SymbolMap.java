@@ -0,0 +1,118 @@
+package oop.ex6.symbol_table;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from identifier ids to ints, with linear probing.
+ * Keys and values are kept in primitive arrays, so nothing is boxed or allocated per entry
+ */
+class SymbolMap {
+    static final int MISSING = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY = -1;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Constructor
+     */
+    SymbolMap() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Looks a key up
+     * @param key a non negative identifier id
+     * @return the key's value, or MISSING if it has none
+     */
+    int get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Maps a key to a value, replacing its previous value
+     * @param key a non negative identifier id
+     * @param value the key's new value
+     */
+    void put(int key, int value) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        boolean added = keys[slot] == EMPTY;
+        keys[slot] = key;
+        values[slot] = value;
+        if (added && ++size * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    /**
+     * Removes a key, shifting back the entries that probed past it so no tombstones are left
+     * @param key a non negative identifier id
+     */
+    void remove(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        size--;
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+            //move the entry back if its home isn't cyclically between the hole and its slot
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[slot] = EMPTY;
+    }
+
+    /**
+     * Removes every key, keeping the map's capacity
+     */
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys, oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        //ids are dense, so scatter them to keep neighbouring ids from clustering
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -2,46 +2,90 @@ package oop.ex6.symbol_table;
 
 import oop.ex6.compiler.Type;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
- * A facade class for holding and managing a hashmap that links a varName to it's values
+ * A facade class for holding and managing a map that links a variable's identifier id to it's values.
+ * The values are packed Data ints kept in a primitive array, and a method's signature is kept as the bytes
+ * of its types' ordinals
  */
 public class SymbolTable {
-    private final HashMap<String, Data> table;
+    private static final int INITIAL_CAPACITY = 8;
 
-    /**
-     * Constructor
-     */
-    public SymbolTable(){
-        this.table = new HashMap<>();
-    }
+    private final SymbolMap table = new SymbolMap();
+    private int[] data = new int[INITIAL_CAPACITY];
+    private byte[][] signatures;
+    private int size;
 
     /**
      * adds a parameter to the symbol table
-     * @param name varName to add
+     * @param symbol identifier id of the variable
      * @param type var type
      * @param isFinal is the var final
      * @return true if succeeded adding, false otherwise
      */
-    public boolean addParameter(String name, Type type, boolean isFinal){
-        if (table.get(name) != null){
+    public boolean addParameter(int symbol, Type type, boolean isFinal) {
+        if (table.get(symbol) != SymbolMap.MISSING) {
             return false;
         }
-        Data data = new Data(type, isFinal);
-        table.put(name, data);
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size * 2);
+        }
+        data[size] = Data.of(type, isFinal);
+        table.put(symbol, size++);
         return true;
     }
 
+    /**
+     * Removes every parameter and signature, keeping the table's capacity
+     */
+    public void clear() {
+        table.clear();
+        if (signatures != null) {
+            Arrays.fill(signatures, null);
+        }
+        size = 0;
+    }
+
     /**
      * getter for a parameter in the symbol table
-     * @param name parameter name to look for
-     * @return the parameter's data if found, null otherwise
+     * @param symbol identifier id of the parameter to look for
+     * @return the parameter's packed Data if found, Data.NOT_FOUND otherwise
+     */
+    public int getParameter(int symbol) {
+        int index = table.get(symbol);
+        return index == SymbolMap.MISSING ? Data.NOT_FOUND : data[index];
+    }
+
+    /**
+     * sets a parameter's status to initialized
+     * @param symbol identifier id of a parameter in the symbol table
+     */
+    public void initialized(int symbol) {
+        int index = table.get(symbol);
+        data[index] = Data.initialized(data[index]);
+    }
+
+    /**
+     * a getter for a method's signature
+     * @param symbol identifier id of a method in the symbol table
+     * @return the needed types' ordinals, or null if the method has no parameters
+     */
+    public byte[] getSignature(int symbol) {
+        //methods without parameters that were added after the last signature are beyond the signatures' array
+        int index = table.get(symbol);
+        return signatures == null || index >= signatures.length ? null : signatures[index];
+    }
+
+    /**
+     * setter for a method's signature
+     * @param symbol identifier id of a method in the symbol table
+     * @param signature the types' ordinals to set
      */
-    public Data getParameter(String name){
-        if (table.get(name) != null) {
-            return table.get(name);
+    public void setSignature(int symbol, byte[] signature) {
+        if (signatures == null || signatures.length < data.length) {
+            signatures = signatures == null ? new byte[data.length][] : Arrays.copyOf(signatures, data.length);
         }
-        return null;
+        signatures[table.get(symbol)] = signature;
     }
 }
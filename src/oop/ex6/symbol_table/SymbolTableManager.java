@@ -2,7 +2,6 @@ package oop.ex6.symbol_table;
 
 import oop.ex6.compiler.Type;
 
-import java.util.Iterator;
 import java.util.LinkedList;
 
 /**
@@ -10,8 +9,55 @@ import java.util.LinkedList;
  */
 public class SymbolTableManager {
     private final LinkedList<SymbolTable> tables = new LinkedList<>();
-    private final SymbolTable methodsTable = new SymbolTable();
+    private final SymbolTable methodsTable;
+    //true if the global scope is shared with other managers, and must only be read
+    private final boolean forked;
 
+    //Counters of the manager's work, reported by --stats
+    int lookups;
+    int scopesOpened;
+    int maxDepth;
+
+    /**
+     * Constructor
+     */
+    public SymbolTableManager() {
+        this.methodsTable = new SymbolTable();
+        this.forked = false;
+    }
+
+    /**
+     * Constructor for a manager that shares the methods of another one, and has no scopes of its own yet
+     * @param other the manager whose methods are shared
+     */
+    protected SymbolTableManager(SymbolTableManager other) {
+        this.methodsTable = other.methodsTable;
+        this.forked = true;
+    }
+
+    /**
+     * Creates a manager holding only the global scope and the methods of this one, to check a method body with.
+     * The global scope and the methods are shared and must only be read - an uninitialized global that a method
+     * assigns is shadowed into the method's own scopes instead, so every manager sees the globals the same way
+     * @return a new manager over the same global scope
+     */
+    public SymbolTableManager forkGlobalScope() {
+        SymbolTableManager fork = new SymbolTableManager(this);
+        fork.tables.add(tables.getLast());
+        return fork;
+    }
+
+    /**
+     * Forgets every scope, method and counter, so the manager may check another program. Only a manager that
+     * isn't a fork, and whose forks are all done, can be reset
+     */
+    public void reset() {
+        tables.clear();
+        methodsTable.clear();
+        lookups = 0;
+        scopesOpened = 0;
+        maxDepth = 0;
+    }
 
     /**
      * Opens a new Symbol Table for a newly opened scope
@@ -19,6 +65,7 @@ public class SymbolTableManager {
     public void openScope() {
         SymbolTable table = new SymbolTable();
         tables.addFirst(table);
+        countScope(tables.size());
     }
 
     /**
@@ -38,65 +85,134 @@ public class SymbolTableManager {
 
     /**
      * Looks for a variable in the linked list, and returns it if found
-     * @param name name of the variable to look for
-     * @return the variable's data if found, false otherwise
-     */
-    public Data getParameter(String name) {
-        Iterator<SymbolTable> tableIterator = tables.iterator();
-        SymbolTable curTable = tableIterator.next();
-        Data ret;
-        while (tableIterator.hasNext()) {
-            if ((ret = curTable.getParameter(name)) != null) {
-                return ret;
+     * @param symbol identifier id of the variable to look for
+     * @return the variable's packed Data if found, Data.NOT_FOUND otherwise
+     */
+    public int getParameter(int symbol) {
+        lookups++;
+        for (SymbolTable table : tables) {
+            int data = table.getParameter(symbol);
+            if (data != Data.NOT_FOUND) {
+                return data;
             }
-            curTable = tableIterator.next();
         }
-        if ((ret = curTable.getParameter(name)) != null) {
-            return ret;
+        return Data.NOT_FOUND;
+    }
+
+    /**
+     * Sets the innermost declaration of a variable to initialized. A fork shadows a global it initializes with
+     * an initialized variable of the innermost scope
+     * @param symbol identifier id of a declared variable
+     */
+    public void initialized(int symbol) {
+        for (SymbolTable table : tables) {
+            int data = table.getParameter(symbol);
+            if (data == Data.NOT_FOUND) {
+                continue;
+            }
+            if (forked && table == tables.getLast() && table != tables.getFirst()) {
+                if (!Data.getInitialized(data)) {
+                    tables.getFirst().addParameter(symbol, Data.getType(data), Data.isFinal(data));
+                    tables.getFirst().initialized(symbol);
+                }
+            } else {
+                table.initialized(symbol);
+            }
+            return;
         }
-        return null;
     }
 
     /**
-     * Looks for the wanted method in the methods table
-     * @param name name of the variable to look for
-     * @return the variable's data if found, false otherwise
+     * Checks if the wanted method is in the methods table
+     * @param symbol identifier id of the method to look for
+     * @return true if the method was declared, false otherwise
      */
-    public Data getMethod(String name) {
-        return(methodsTable.getParameter(name));
+    public boolean hasMethod(int symbol) {
+        lookups++;
+        return methodsTable.getParameter(symbol) != Data.NOT_FOUND;
+    }
+
+    /**
+     * getter for a method's signature
+     * @param symbol identifier id of a declared method
+     * @return the needed types' ordinals, or null if the method has no parameters
+     */
+    public byte[] getSignature(int symbol) {
+        return methodsTable.getSignature(symbol);
+    }
+
+    /**
+     * setter for a method's signature
+     * @param symbol identifier id of a declared method
+     * @param signature the types' ordinals to set
+     */
+    public void setSignature(int symbol, byte[] signature) {
+        methodsTable.setSignature(symbol, signature);
     }
 
     /**
      * Adds a parameter to the current Symbol Table
-     * @param name var name to add
+     * @param symbol identifier id of the var to add
      * @param type var type
      * @param isFinal true if the var is final, false otherwise
      * @return true if succeeded in adding, false otherwise
      */
-    public boolean addParameter(String name, Type type, boolean isFinal) {
-        return tables.getFirst().addParameter(name, type, isFinal);
+    public boolean addParameter(int symbol, Type type, boolean isFinal) {
+        return tables.getFirst().addParameter(symbol, type, isFinal);
     }
 
     /**
-     * Adds a method to the current Symbol Table
-     * @param name var name to add
-     * @param type var type
-     * @param isFinal true if the var is final, false otherwise
+     * Adds a method to the methods table
+     * @param symbol identifier id of the method to add
      * @return true if succeeded in adding, false otherwise
      */
-    public boolean addMethod(String name, Type type, boolean isFinal) {
-        return methodsTable.addParameter(name, type, isFinal);
+    public boolean addMethod(int symbol) {
+        return methodsTable.addParameter(symbol, Type.METHOD, false);
     }
 
-    public boolean isGlobal(String varName) {
+    /**
+     * Checks if a variable's innermost declaration is in the global scope
+     * @param symbol identifier id of the variable
+     * @return true if the variable is only declared in the global scope, false otherwise
+     */
+    public boolean isGlobal(int symbol) {
         for (var table: tables) {
             if (tables.getLast() == table) {
                 break;
             }
-            if (table.getParameter(varName) != null) {
+            if (table.getParameter(symbol) != Data.NOT_FOUND) {
                 return false;
             }
         }
-        return tables.getLast().getParameter(varName) != null;
+        return tables.getLast().getParameter(symbol) != Data.NOT_FOUND;
+    }
+
+    /**
+     * getter for the number of variable and method lookups made through this manager
+     * @return number of lookups
+     */
+    public int getLookups() {
+        return lookups;
+    }
+
+    /**
+     * getter for the number of scopes this manager opened
+     * @return number of opened scopes
+     */
+    public int getScopesOpened() {
+        return scopesOpened;
+    }
+
+    /**
+     * getter for the largest number of scopes that were open at once
+     * @return the deepest nesting of scopes
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    void countScope(int depth) {
+        scopesOpened++;
+        maxDepth = Math.max(maxDepth, depth);
     }
-}
\ No newline at end of file
+}
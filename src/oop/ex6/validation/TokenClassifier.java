@@ -0,0 +1,341 @@
+package oop.ex6.validation;
+
+/**
+ * A class of hand-written character scanners that classify tokens and lines.
+ * Every scanner gives exactly the same answer as the matching regex in Validator, but runs in a single
+ * pass over the characters without compiling patterns or allocating matchers
+ */
+public class TokenClassifier {
+    private final static String TRUE = "true";
+    private final static String FALSE = "false";
+    private final static char SINGLE_QUOTE = '\'';
+    private final static char DOUBLE_QUOTE = '"';
+    private final static char UNDERSCORE = '_';
+    private final static char DOT = '.';
+    private final static char END_OF_LINE = ';';
+    private final static char SCOPE_OPENER = '{';
+    private final static char SCOPE_CLOSER = '}';
+
+    /**
+     * Checks if a value is an int literal, same as [+-]?\d+
+     * @param value value to check
+     * @return true if the value is an int literal, false otherwise
+     */
+    public static boolean isInt(CharSequence value) {
+        return isInt(value, 0, value.length());
+    }
+
+    /**
+     * Checks if a range of characters is an int literal, same as [+-]?\d+
+     * @param value characters to check
+     * @param start offset of the first character
+     * @param end offset after the last character
+     * @return true if the range is an int literal, false otherwise
+     */
+    public static boolean isInt(CharSequence value, int start, int end) {
+        int i = skipSign(value, start, end);
+        if (i == end) {
+            return false;
+        }
+        return skipDigits(value, i, end) == end;
+    }
+
+    /**
+     * Checks if a value is a double literal, same as [+-]?\d*\.*\d+
+     * @param value value to check
+     * @return true if the value is a double literal, false otherwise
+     */
+    public static boolean isDouble(CharSequence value) {
+        return isDouble(value, 0, value.length());
+    }
+
+    /**
+     * Checks if a range of characters is a double literal, same as [+-]?\d*\.*\d+
+     * @param value characters to check
+     * @param start offset of the first character
+     * @param end offset after the last character
+     * @return true if the range is a double literal, false otherwise
+     */
+    public static boolean isDouble(CharSequence value, int start, int end) {
+        int digits = skipSign(value, start, end);
+        int dots = skipDigits(value, digits, end);
+        int fraction = dots;
+        while (fraction < end && value.charAt(fraction) == DOT) {
+            fraction++;
+        }
+        if (fraction == dots) {
+            //no dots, so the whole value is the last group of digits
+            return dots == end && dots > digits;
+        }
+        return fraction < end && skipDigits(value, fraction, end) == end;
+    }
+
+    /**
+     * Checks if a value is a char literal, same as '.{1}'
+     * @param value value to check
+     * @return true if the value is a char literal, false otherwise
+     */
+    public static boolean isChar(CharSequence value) {
+        return isChar(value, 0, value.length());
+    }
+
+    /**
+     * Checks if a range of characters is a char literal, same as '.{1}'. Like the regex, the literal holds a single
+     * code point, which may be a surrogate pair
+     * @param value characters to check
+     * @param start offset of the first character
+     * @param end offset after the last character
+     * @return true if the range is a char literal, false otherwise
+     */
+    public static boolean isChar(CharSequence value, int start, int end) {
+        if (end - start < 3 || value.charAt(start) != SINGLE_QUOTE || value.charAt(end - 1) != SINGLE_QUOTE) {
+            return false;
+        }
+        int codePoint = Character.codePointAt(value, start + 1);
+        return start + 1 + Character.charCount(codePoint) == end - 1 && !isLineTerminator(value.charAt(start + 1));
+    }
+
+    /**
+     * Checks if a value is a String literal, same as ".*"
+     * @param value value to check
+     * @return true if the value is a String literal, false otherwise
+     */
+    public static boolean isString(CharSequence value) {
+        return isString(value, 0, value.length());
+    }
+
+    /**
+     * Checks if a range of characters is a String literal, same as ".*"
+     * @param value characters to check
+     * @param start offset of the first character
+     * @param end offset after the last character
+     * @return true if the range is a String literal, false otherwise
+     */
+    public static boolean isString(CharSequence value, int start, int end) {
+        if (end - start < 2 || value.charAt(start) != DOUBLE_QUOTE || value.charAt(end - 1) != DOUBLE_QUOTE) {
+            return false;
+        }
+        for (int i = start + 1; i < end - 1; i++) {
+            if (isLineTerminator(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a value is a boolean literal, same as true|false
+     * @param value value to check
+     * @return true if the value is a boolean literal, false otherwise
+     */
+    public static boolean isBoolean(CharSequence value) {
+        return isBoolean(value, 0, value.length());
+    }
+
+    /**
+     * Checks if a range of characters is a boolean literal, same as true|false
+     * @param value characters to check
+     * @param start offset of the first character
+     * @param end offset after the last character
+     * @return true if the range is a boolean literal, false otherwise
+     */
+    public static boolean isBoolean(CharSequence value, int start, int end) {
+        return regionEquals(value, start, end, TRUE) || regionEquals(value, start, end, FALSE);
+    }
+
+    /**
+     * Checks if a value is a legal variable name, same as (^_+\w+|^[a-zA-Z]+\w*) that is not a keyword
+     * @param value value to check
+     * @return true if the value is a legal variable name, false otherwise
+     */
+    public static boolean isVarName(CharSequence value) {
+        return isVarName(value, 0, value.length());
+    }
+
+    /**
+     * Checks if a range of characters is a legal variable name, same as (^_+\w+|^[a-zA-Z]+\w*) that is not a
+     * keyword
+     * @param value characters to check
+     * @param start offset of the first character
+     * @param end offset after the last character
+     * @return true if the range is a legal variable name, false otherwise
+     */
+    public static boolean isVarName(CharSequence value, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        char first = value.charAt(start);
+        if (!isLetter(first) && !(first == UNDERSCORE && end - start > 1)) {
+            return false;
+        }
+        return skipWordCharacters(value, start + 1, end) == end && !isKeyword(value, start, end);
+    }
+
+    /**
+     * Checks if a value is a legal method name, same as [a-zA-Z]+[\w]*[ \t]* that is not a keyword
+     * @param value value to check
+     * @return true if the value is a legal method name, false otherwise
+     */
+    public static boolean isMethodName(CharSequence value) {
+        return isMethodName(value, 0, value.length());
+    }
+
+    /**
+     * Checks if a range of characters is a legal method name, same as [a-zA-Z]+[\w]*[ \t]* that is not a
+     * keyword
+     * @param value characters to check
+     * @param start offset of the first character
+     * @param end offset after the last character
+     * @return true if the range is a legal method name, false otherwise
+     */
+    public static boolean isMethodName(CharSequence value, int start, int end) {
+        if (start == end || !isLetter(value.charAt(start))) {
+            return false;
+        }
+        int i = skipWordCharacters(value, start + 1, end);
+        while (i < end && (value.charAt(i) == ' ' || value.charAt(i) == '\t')) {
+            i++;
+        }
+        return i == end && !isKeyword(value, start, end);
+    }
+
+    /**
+     * Checks if a value is one of the reserved words of SJava
+     * @param value value to check
+     * @return true if the value is a reserved word, false otherwise
+     */
+    public static boolean isKeyword(CharSequence value) {
+        return isKeyword(value, 0, value.length());
+    }
+
+    /**
+     * Checks if a range of characters is one of the reserved words of SJava
+     * @param value characters to check
+     * @param start offset of the first character
+     * @param end offset after the last character
+     * @return true if the range is a reserved word, false otherwise
+     */
+    public static boolean isKeyword(CharSequence value, int start, int end) {
+        for (String keyword : Validator.ILLEGAL_NAMES) {
+            if (regionEquals(value, start, end, keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a line ends with a scope opener, a scope closer or an end of line, same as finding
+     * ([}{;]\s*)$
+     * @param line line to check
+     * @return true if the line ends legally, false otherwise
+     */
+    public static boolean endsLegally(CharSequence line) {
+        int end = line.length();
+        int i = skipWhitespaceBackwards(line, end);
+        if (i > 0 && isStatementEnd(line.charAt(i - 1))) {
+            return true;
+        }
+        //$ may also match before a final line terminator that \s doesn't cover
+        if (end > 0 && isLineTerminator(line.charAt(end - 1)) && !isWhitespace(line.charAt(end - 1))) {
+            i = skipWhitespaceBackwards(line, end - 1);
+            return i > 0 && isStatementEnd(line.charAt(i - 1));
+        }
+        return false;
+    }
+
+    /**
+     * Counts the statements of a line, the same way as counting the matches of
+     * ([^;]*;)|([^{]*\{)|([^}]*}), and checks there is at most one
+     * @param line line to check
+     * @return true if the line holds at most one statement, false otherwise
+     */
+    public static boolean hasAtMostOneStatement(CharSequence line) {
+        int end = nextStatementEnd(line, 0);
+        return end < 0 || nextStatementEnd(line, end) < 0;
+    }
+
+    private static int nextStatementEnd(CharSequence line, int from) {
+        int end = indexOf(line, END_OF_LINE, from);
+        if (end < 0) {
+            end = indexOf(line, SCOPE_OPENER, from);
+        }
+        if (end < 0) {
+            end = indexOf(line, SCOPE_CLOSER, from);
+        }
+        return end < 0 ? -1 : end + 1;
+    }
+
+    private static int indexOf(CharSequence line, char c, int from) {
+        for (int i = from; i < line.length(); i++) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespaceBackwards(CharSequence line, int end) {
+        while (end > 0 && isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int skipSign(CharSequence value, int start, int end) {
+        if (start < end && (value.charAt(start) == '+' || value.charAt(start) == '-')) {
+            return start + 1;
+        }
+        return start;
+    }
+
+    private static int skipDigits(CharSequence value, int start, int end) {
+        while (start < end && isDigit(value.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int skipWordCharacters(CharSequence value, int start, int end) {
+        while (start < end && isWordCharacter(value.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static boolean regionEquals(CharSequence value, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (value.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isStatementEnd(char c) {
+        return c == END_OF_LINE || c == SCOPE_OPENER || c == SCOPE_CLOSER;
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    static boolean isWordCharacter(char c) {
+        return isLetter(c) || isDigit(c) || c == UNDERSCORE;
+    }
+
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
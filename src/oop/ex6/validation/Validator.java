@@ -2,9 +2,9 @@ package oop.ex6.validation;
 
 import oop.ex6.compiler.Type;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -12,23 +12,13 @@ import java.util.regex.Pattern;
  * A class for validating different program inputs
  */
 public class Validator {
-    // Regex constants
-    private final static String VAR_NAME_REGEX = "(^_+\\w+|^[a-zA-Z]+\\w*)";
-    private final static String METHOD_NAME_REGEX = "[a-zA-Z]+[\\w]*[ \\t]*";
-    private final static String DOUBLE_REGEX = "[+-]?\\d*\\.*\\d+";
-    private final static String INT_REGEX = "[+-]?\\d+";
-    private final static String CHAR_REGEX = "'.{1}'";
-    private final static String BOOLEAN_REGEX = "true|false";
-    private final static String STRING_REGEX = "\".*\"";
-    public static final String LEGAL_LINE_REGEX = "([}{;]\\s*)$";
-    public static final String DEC_COUNT_REGEX = "([^;]*;)|([^{]*\\{)|([^}]*})";
-
     // Type constants
     final static String STRING_TYPE = "String";
     final static String INT_TYPE = "int";
     final static String DOUBLE_TYPE = "double";
     final static String CHAR_TYPE = "char";
     final static String BOOLEAN_TYPE = "boolean";
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
     static String[] ILLEGAL_NAMES = {"String", "int", "double", "char", "boolean", "if", "while", "return",
             "true", "false", "void", "final"};
 
@@ -40,7 +30,7 @@ public class Validator {
      * @return true if there's a match, false otherwise
      */
     public static boolean editRegex(String regex, String value) {
-        Pattern p = Pattern.compile(regex);
+        Pattern p = PATTERNS.computeIfAbsent(regex, Pattern::compile);
         Matcher m = p.matcher(value);
         return m.matches();
     }
@@ -53,29 +43,24 @@ public class Validator {
      * @return true if the type matches, false otherwise
      */
     public static boolean checkType(Type type, String value) {
-        Boolean flag = false;
-        if (type == Type.STRING) {
-            flag = editRegex(STRING_REGEX, value);
-        }
-        if (type == Type.DOUBLE || type == Type.BOOLEAN) {
-            flag = editRegex(DOUBLE_REGEX, value);
-            if (flag) {
-                return true;
-            }
-        }
-        if (type == Type.INT || type == Type.BOOLEAN || type == Type.DOUBLE) {
-            flag = editRegex(INT_REGEX, value);
-            if (flag) {
-                return true;
-            }
-        }
-        if (type == Type.BOOLEAN) {
-            flag = editRegex(BOOLEAN_REGEX, value);
+        if (type == null) {
+            return false;
         }
-        if (type == Type.CHAR) {
-            flag = editRegex(CHAR_REGEX, value);
+        switch (type) {
+            case STRING:
+                return TokenClassifier.isString(value);
+            case INT:
+                return TokenClassifier.isInt(value);
+            case DOUBLE:
+                //every int literal is also a double literal
+                return TokenClassifier.isDouble(value);
+            case BOOLEAN:
+                return TokenClassifier.isDouble(value) || TokenClassifier.isBoolean(value);
+            case CHAR:
+                return TokenClassifier.isChar(value);
+            default:
+                return false;
         }
-        return flag;
     }
 
     /**
@@ -85,9 +70,7 @@ public class Validator {
      * @return true if legal, false otherwise
      */
     static public boolean checkVarName(String varName) {
-        Pattern p = Pattern.compile(VAR_NAME_REGEX);
-        Matcher m = p.matcher(varName);
-        return (m.matches() && !isIn(ILLEGAL_NAMES, varName));
+        return TokenClassifier.isVarName(varName);
     }
 
     /**
@@ -97,9 +80,7 @@ public class Validator {
      * @return true if legal, false otherwise
      */
     static public boolean checkMethodName(String methodName) {
-        Pattern p = Pattern.compile(METHOD_NAME_REGEX);
-        Matcher m = p.matcher(methodName);
-        return (m.matches() && !isIn(ILLEGAL_NAMES, methodName));
+        return TokenClassifier.isMethodName(methodName);
     }
 
     /**
@@ -130,24 +111,19 @@ public class Validator {
      * @return true if legal, false otherwise
      */
     public static boolean checkLegalLine(String currentCommand) {
-        Pattern p = Pattern.compile(LEGAL_LINE_REGEX);
-        Matcher m = p.matcher(currentCommand);
-        return (m.find() && checkMaxOneDec(currentCommand));
+        return TokenClassifier.endsLegally(currentCommand) && checkMaxOneDec(currentCommand);
     }
 
     public static boolean isIn(Object[] list, Object token) {
-        ArrayList<Object> allowedInput = new ArrayList<>();
-        Collections.addAll(allowedInput, list);
-        return (allowedInput.contains(token));
+        for (Object allowed : list) {
+            if (Objects.equals(allowed, token)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public static boolean checkMaxOneDec(String currentCommand) {
-        Pattern pattern = Pattern.compile(DEC_COUNT_REGEX);
-        Matcher matcher = pattern.matcher(currentCommand);
-        int count = 0;
-        while (matcher.find()) {
-            count++;
-        }
-        return count <= 1;
+        return TokenClassifier.hasAtMostOneStatement(currentCommand);
     }
 }